@@ -22,12 +22,16 @@ import androidx.concurrent.futures.CallbackToFutureAdapter;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
-import java.util.Comparator;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -47,15 +51,22 @@ public final class ListenableFutureHelper {
     public static final int PRIORITY_VERY_LOW = -2;
     public static final int SORT_STACKS = 0;// 先进先出
     public static final int SORT_QUEUES = 1;// 先进后出
+    public static final int DEFAULT_QUEUE_CAPACITY = Integer.MAX_VALUE;// 默认任务队列容量，不限容量
     private static final Object sJobThreadPoolLock = new Object();
+    private static final Object sIOThreadPoolLock = new Object();
+    private static final ConcurrentHashMap<Object, InnerSharedTask<?>> sSharedTasks =
+            new ConcurrentHashMap<>();
     private static volatile ExecutorService sJobThreadPool;
+    private static volatile ExecutorService sIOThreadPool;
+    private static volatile UIThreadExecutor sUIThreadExecutor;
 
     private ListenableFutureHelper() {
         //no instance
     }
 
     /**
-     * 获取任务线程池
+     * 获取任务线程池，适用于计算任务
+     * 默认队列不限容量，不会拒绝任务，需要有界队列时通过 {@link #setTaskThreadPool(ExecutorServiceBuilder, int, int)} 设置。
      *
      * @return 任务线程池
      */
@@ -66,15 +77,11 @@ public final class ListenableFutureHelper {
                     final int CPU = Runtime.getRuntime().availableProcessors();
                     final int corePoolSize = Math.max(2, Math.min(CPU - 1, 4));
                     final int maximumPoolSize = CPU * 2 + 1;
-                    sJobThreadPool = new ThreadPoolExecutor(
-                            corePoolSize,
-                            maximumPoolSize,
-                            30, TimeUnit.SECONDS,
-                            new PriorityBlockingQueue<>(11, new InnerComparator()),
-                            new InnerThreadFactory(),
-                            new ThreadPoolExecutor.CallerRunsPolicy());
-
-                    ((ThreadPoolExecutor) sJobThreadPool).allowCoreThreadTimeOut(true);
+                    sJobThreadPool = build((workQueue, threadFactory, handler) ->
+                                    new TaskExecutor(corePoolSize, maximumPoolSize,
+                                            30, TimeUnit.SECONDS,
+                                            workQueue, threadFactory, handler),
+                            "Job #", DEFAULT_QUEUE_CAPACITY, TaskExecutor.BACK_PRESSURE_BLOCK);
                 }
             }
         }
@@ -84,20 +91,151 @@ public final class ListenableFutureHelper {
     /**
      * 设置任务线程池
      *
-     * @param builder 线程池构建器
+     * 有界队列使用 {@link TaskExecutor#BACK_PRESSURE_ABORT} 或 {@link TaskExecutor#BACK_PRESSURE_BLOCK_OFF_MAIN} 时，
+     * 被拒绝的任务以 {@link java.util.concurrent.RejectedExecutionException} 失败，
+     * 通过 {@link #execute(Runnable)} 提交的任务没有失败回调，被拒绝时直接丢弃。
+     *
+     * @param builder      线程池构建器
+     * @param capacity     队列容量
+     * @param backPressure 队列已满时的背压策略
      */
-    public static void setTaskThreadPool(@NonNull ExecutorServiceBuilder builder) {
+    public static void setTaskThreadPool(@NonNull ExecutorServiceBuilder builder,
+                                         int capacity, int backPressure) {
         if (sJobThreadPool == null) {
             synchronized (sJobThreadPoolLock) {
                 if (sJobThreadPool == null) {
-                    sJobThreadPool = builder.build(
-                            new PriorityBlockingQueue<>(11, new InnerComparator()),
-                            new InnerThreadFactory(),
-                            new ThreadPoolExecutor.CallerRunsPolicy());
-                    ((ThreadPoolExecutor) sJobThreadPool).allowCoreThreadTimeOut(true);
+                    sJobThreadPool = build(builder, "Job #", capacity, backPressure);
+                }
+            }
+        }
+    }
+
+    /**
+     * 设置任务线程池，队列不限容量
+     *
+     * @param builder 线程池构建器
+     */
+    public static void setTaskThreadPool(@NonNull ExecutorServiceBuilder builder) {
+        setTaskThreadPool(builder, DEFAULT_QUEUE_CAPACITY, TaskExecutor.BACK_PRESSURE_BLOCK);
+    }
+
+    /**
+     * 获取IO线程池，适用于阻塞的读写任务
+     * 默认队列不限容量，不会拒绝任务，需要有界队列时通过 {@link #setIOThreadPool(ExecutorServiceBuilder, int, int)} 设置。
+     *
+     * @return IO线程池
+     */
+    public static ExecutorService getIOThreadPool() {
+        if (sIOThreadPool == null) {
+            synchronized (sIOThreadPoolLock) {
+                if (sIOThreadPool == null) {
+                    sIOThreadPool = build(ListenableFutureHelper::buildIOThreadPool, "IO #",
+                            DEFAULT_QUEUE_CAPACITY, TaskExecutor.BACK_PRESSURE_BLOCK);
+                }
+            }
+        }
+        return sIOThreadPool;
+    }
+
+    /**
+     * 设置IO线程池
+     *
+     * 被拒绝的任务的处理同 {@link #setTaskThreadPool(ExecutorServiceBuilder, int, int)}。
+     *
+     * @param builder      线程池构建器
+     * @param capacity     队列容量
+     * @param backPressure 队列已满时的背压策略
+     */
+    public static void setIOThreadPool(@NonNull ExecutorServiceBuilder builder,
+                                       int capacity, int backPressure) {
+        if (sIOThreadPool == null) {
+            synchronized (sIOThreadPoolLock) {
+                if (sIOThreadPool == null) {
+                    sIOThreadPool = build(builder, "IO #", capacity, backPressure);
+                }
+            }
+        }
+    }
+
+    /**
+     * 设置IO线程池，队列不限容量
+     *
+     * @param builder 线程池构建器
+     */
+    public static void setIOThreadPool(@NonNull ExecutorServiceBuilder builder) {
+        setIOThreadPool(builder, DEFAULT_QUEUE_CAPACITY, TaskExecutor.BACK_PRESSURE_BLOCK);
+    }
+
+    @NonNull
+    private static ExecutorService buildIOThreadPool(@NonNull BlockingQueue<Runnable> workQueue,
+                                                     @NonNull ThreadFactory threadFactory,
+                                                     @NonNull RejectedExecutionHandler handler) {
+        final int CPU = Runtime.getRuntime().availableProcessors();
+        return new TaskExecutor(2, Math.max(16, CPU * 4), 10, TimeUnit.SECONDS,
+                workQueue, threadFactory, handler);
+    }
+
+    /**
+     * 判断运行环境是否支持虚拟线程
+     *
+     * @return 支持时返回true
+     */
+    public static boolean isVirtualThreadSupported() {
+        return getVirtualThreadFactoryMethod() != null;
+    }
+
+    @Nullable
+    private static Method getVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * 创建虚拟线程池构建器，每个任务在新的虚拟线程中执行，适用于阻塞的读写任务，
+     * 任务不排队，优先级与排序方式无效
+     *
+     * @param fallback 运行环境不支持虚拟线程时使用的构建器
+     * @return 线程池构建器
+     */
+    @NonNull
+    public static ExecutorServiceBuilder newVirtualThreadBuilder(
+            @NonNull ExecutorServiceBuilder fallback) {
+        return (workQueue, threadFactory, handler) -> {
+            final Method method = getVirtualThreadFactoryMethod();
+            if (method != null) {
+                try {
+                    return (ExecutorService) method.invoke(null);
+                } catch (Throwable t) {
+                    // ignore
                 }
             }
+            return fallback.build(workQueue, threadFactory, handler);
+        };
+    }
+
+    /**
+     * 创建虚拟线程池构建器，运行环境不支持虚拟线程时使用默认的IO线程池
+     *
+     * @return 线程池构建器
+     */
+    @NonNull
+    public static ExecutorServiceBuilder newVirtualThreadBuilder() {
+        return newVirtualThreadBuilder(ListenableFutureHelper::buildIOThreadPool);
+    }
+
+    private static ExecutorService build(ExecutorServiceBuilder builder, String name,
+                                         int capacity, int backPressure) {
+        final TaskQueue queue = new TaskQueue(capacity);
+        final ExecutorService executor = builder.build(queue, new InnerThreadFactory(name),
+                new TaskQueue.RejectedHandler(backPressure));
+        if (executor instanceof ThreadPoolExecutor) {
+            queue.attach((ThreadPoolExecutor) executor);
+            ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
         }
+        return executor;
     }
 
     /**
@@ -107,7 +245,17 @@ public final class ListenableFutureHelper {
      */
     @NonNull
     public static UIThreadExecutor getUIThreadExecutor() {
-        return UIThreadExecutor.getDefault();
+        final UIThreadExecutor executor = sUIThreadExecutor;
+        return executor == null ? UIThreadExecutor.getDefault() : executor;
+    }
+
+    /**
+     * 设置UI线程执行器，大量任务同时完成时可使用 {@link UIThreadExecutor#getCoalescing()} 按帧合并回调
+     *
+     * @param executor UI线程执行器，为null时使用默认执行器
+     */
+    public static void setUIThreadExecutor(@Nullable UIThreadExecutor executor) {
+        sUIThreadExecutor = executor;
     }
 
     /**
@@ -133,10 +281,189 @@ public final class ListenableFutureHelper {
                                                  @Nullable Consumer<Throwable> failure) {
         final ListenableFuture<T> future = CallbackToFutureAdapter.getFuture(
                 completer -> {
-                    worker.execute(new InnerTask<>(completer, task, priority, sort));
+                    final InnerTask<T> inner = new InnerTask<>(completer, task, priority, sort);
+                    // 取消时移出队列或中断执行
+                    completer.addCancellationListener(() -> inner.cancel(worker), Runnable::run);
+                    worker.execute(inner);
                     return "submit_task_" + task.getClass().getName();
                 });
+        addCallbacks(future, listener, success, failure);
+        return future;
+    }
+
+    /**
+     * 提交异步任务，键相同且未完成的任务合并为一个任务执行
+     * 每次提交返回独立的异步任务，全部取消后才取消执行中的任务。
+     *
+     * @param key      键，需正确实现 equals 与 hashCode
+     * @param worker   任务执行者
+     * @param listener 监听执行者
+     * @param task     任务执行回调，合并时仅执行首个任务
+     * @param priority 优先级
+     * @param sort     排序方式
+     * @param success  任务成功回调
+     * @param failure  任务失败回调
+     * @param <T>      返回类型
+     * @return 异步任务
+     * @noinspection UnusedReturnValue
+     */
+    @NonNull
+    public static <T> ListenableFuture<T> submitKeyed(@NonNull Object key,
+                                                      @NonNull Executor worker,
+                                                      @NonNull Executor listener,
+                                                      @NonNull Callable<T> task,
+                                                      int priority, int sort,
+                                                      @Nullable Consumer<T> success,
+                                                      @Nullable Consumer<Throwable> failure) {
+        final ListenableFuture<T> future = CallbackToFutureAdapter.getFuture(
+                completer -> {
+                    while (true) {
+                        //noinspection unchecked
+                        InnerSharedTask<T> shared = (InnerSharedTask<T>) sSharedTasks.get(key);
+                        if (shared == null) {
+                            final InnerSharedTask<T> created = new InnerSharedTask<>(key);
+                            if (sSharedTasks.putIfAbsent(key, created) != null) {
+                                continue;
+                            }
+                            if (created.subscribe(completer)) {
+                                created.start(submit(worker, Runnable::run, task,
+                                        priority, sort, null, null));
+                                break;
+                            }
+                            continue;
+                        }
+                        if (shared.subscribe(completer)) {
+                            break;
+                        }
+                        // 已完成或已取消，移除后重试
+                        sSharedTasks.remove(key, shared);
+                    }
+                    return "submit_keyed_task_" + key;
+                });
+        addCallbacks(future, listener, success, failure);
+        return future;
+    }
+
+    /**
+     * 提交异步任务，键相同且未完成的任务合并为一个任务执行
+     *
+     * @param key     键，需正确实现 equals 与 hashCode
+     * @param task    任务执行回调，合并时仅执行首个任务
+     * @param success 任务成功回调
+     * @param failure 任务失败回调
+     * @param <T>     返回类型
+     * @return 异步任务
+     * @noinspection UnusedReturnValue
+     */
+    @NonNull
+    public static <T> ListenableFuture<T> submitKeyed(@NonNull Object key,
+                                                      @NonNull Callable<T> task,
+                                                      @Nullable Consumer<T> success,
+                                                      @Nullable Consumer<Throwable> failure) {
+        return submitKeyed(key, getTaskThreadPool(), getUIThreadExecutor(), task,
+                PRIORITY_NORMAL, SORT_STACKS, success, failure);
+    }
+
+    /**
+     * 提交一组异步任务，全部成功后按提交顺序返回结果，
+     * 任一任务失败时立即失败并取消其余任务，取消返回的异步任务时取消全部任务
+     *
+     * @param worker   任务执行者
+     * @param listener 监听执行者
+     * @param tasks    任务执行回调
+     * @param priority 优先级
+     * @param sort     排序方式
+     * @param success  全部任务成功回调
+     * @param failure  任务失败回调
+     * @param <T>      返回类型
+     * @return 异步任务
+     * @noinspection UnusedReturnValue
+     */
+    @NonNull
+    public static <T> ListenableFuture<List<T>> submitAll(@NonNull Executor worker,
+                                                          @NonNull Executor listener,
+                                                          @NonNull List<? extends Callable<T>> tasks,
+                                                          int priority, int sort,
+                                                          @Nullable Consumer<List<T>> success,
+                                                          @Nullable Consumer<Throwable> failure) {
+        final ListenableFuture<List<T>> future = CallbackToFutureAdapter.getFuture(
+                completer -> {
+                    final int size = tasks.size();
+                    if (size == 0) {
+                        completer.set(new ArrayList<>());
+                        return "submit_all_tasks_0";
+                    }
+                    final ArrayList<ListenableFuture<T>> futures = new ArrayList<>(size);
+                    for (Callable<T> task : tasks) {
+                        futures.add(submit(worker, Runnable::run, task,
+                                priority, sort, null, null));
+                    }
+                    completer.addCancellationListener(() -> cancel(futures), Runnable::run);
+                    final Object[] results = new Object[size];
+                    final AtomicInteger remaining = new AtomicInteger(size);
+                    for (int i = 0; i < size; i++) {
+                        final int index = i;
+                        final ListenableFuture<T> child = futures.get(i);
+                        child.addListener(() -> {
+                            try {
+                                results[index] = child.get();
+                            } catch (ExecutionException e) {
+                                if (completer.setException(e.getCause())) {
+                                    cancel(futures);
+                                }
+                                return;
+                            } catch (Throwable t) {
+                                if (completer.setException(t)) {
+                                    cancel(futures);
+                                }
+                                return;
+                            }
+                            if (remaining.decrementAndGet() == 0) {
+                                final ArrayList<T> list = new ArrayList<>(size);
+                                for (Object result : results) {
+                                    //noinspection unchecked
+                                    list.add((T) result);
+                                }
+                                completer.set(list);
+                            }
+                        }, Runnable::run);
+                    }
+                    return "submit_all_tasks_" + size;
+                });
+        addCallbacks(future, listener, success, failure);
+        return future;
+    }
+
+    /**
+     * 提交一组异步任务，全部成功后按提交顺序返回结果，任一任务失败时立即失败并取消其余任务
+     *
+     * @param tasks   任务执行回调
+     * @param success 全部任务成功回调
+     * @param failure 任务失败回调
+     * @param <T>     返回类型
+     * @return 异步任务
+     * @noinspection UnusedReturnValue
+     */
+    @NonNull
+    public static <T> ListenableFuture<List<T>> submitAll(@NonNull List<? extends Callable<T>> tasks,
+                                                          @Nullable Consumer<List<T>> success,
+                                                          @Nullable Consumer<Throwable> failure) {
+        return submitAll(getTaskThreadPool(), getUIThreadExecutor(), tasks,
+                PRIORITY_NORMAL, SORT_STACKS, success, failure);
+    }
+
+    private static void cancel(List<? extends ListenableFuture<?>> futures) {
+        for (ListenableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
 
+    private static <T> void addCallbacks(ListenableFuture<T> future, Executor listener,
+                                         @Nullable Consumer<T> success,
+                                         @Nullable Consumer<Throwable> failure) {
+        if (success == null && failure == null) {
+            return;
+        }
         future.addListener(() -> {
             try {
                 final T result = future.get();
@@ -153,8 +480,6 @@ public final class ListenableFutureHelper {
                 }
             }
         }, listener);
-
-        return future;
     }
 
     /**
@@ -324,78 +649,173 @@ public final class ListenableFutureHelper {
         void run() throws Throwable;
     }
 
-    private static class InnerTask<T> implements Runnable, Comparable<InnerTask<?>> {
+    private static class InnerTask<T> implements Runnable, TaskQueue.Prioritized {
+        private static final int STATE_NEW = 0;
+        private static final int STATE_RUNNING = 1;
+        private static final int STATE_DONE = 2;
+        private static final int STATE_INTERRUPTING = 3;
+        private static final int STATE_CANCELLED = 4;
         private final CallbackToFutureAdapter.Completer<T> mCompleter;
         private final Callable<T> mTask;
-        private final long mTimestamp;
         private final int mPriority;
         private final int mSort;
+        private final AtomicInteger mState = new AtomicInteger(STATE_NEW);
+        private volatile Thread mRunner;
 
         public InnerTask(@NonNull CallbackToFutureAdapter.Completer<T> completer,
                          @NonNull Callable<T> task,
                          int priority, int sort) {
             mCompleter = completer;
             mTask = task;
-            mTimestamp = System.currentTimeMillis();
             mPriority = priority;
             mSort = sort;
         }
 
         @Override
         public void run() {
+            // 由提交线程执行时不记录执行线程，取消时不中断提交线程
+            final boolean interruptible = !TaskQueue.isCallerRuns();
+            mRunner = interruptible ? Thread.currentThread() : null;
+            if (!mState.compareAndSet(STATE_NEW, STATE_RUNNING)) {
+                mRunner = null;
+                return;
+            }
             try {
                 mCompleter.set(mTask.call());
             } catch (Throwable throwable) {
                 mCompleter.setException(throwable);
+            } finally {
+                mRunner = null;
+                if (!mState.compareAndSet(STATE_RUNNING, STATE_DONE)) {
+                    // 等待取消线程完成中断，再清除中断状态，避免影响线程池后续任务
+                    while (mState.get() == STATE_INTERRUPTING) {
+                        Thread.yield();
+                    }
+                    if (interruptible) {
+                        //noinspection ResultOfMethodCallIgnored
+                        Thread.interrupted();
+                    }
+                }
             }
         }
 
-        @Override
-        public int compareTo(InnerTask<?> other) {
-            if (other == null) {
-                return 1;
+        /**
+         * 取消，未执行时移出队列，在线程池中执行时中断执行线程
+         *
+         * @param worker 任务执行者
+         */
+        void cancel(Executor worker) {
+            if (mState.compareAndSet(STATE_NEW, STATE_CANCELLED)) {
+                if (worker instanceof ThreadPoolExecutor) {
+                    ((ThreadPoolExecutor) worker).remove(this);
+                }
+                return;
+            }
+            if (mState.compareAndSet(STATE_RUNNING, STATE_INTERRUPTING)) {
+                try {
+                    final Thread runner = mRunner;
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                } finally {
+                    mState.set(STATE_CANCELLED);
+                }
             }
+        }
+
+        @Override
+        public int getPriority() {
+            return mPriority;
+        }
 
-            // 1. 先按照优先级排序（高优先级排在前面）
-            if (mPriority != other.mPriority) {
-                return Integer.compare(other.mPriority, mPriority);
+        @Override
+        public int getSort() {
+            return mSort;
+        }
+    }
+
+    private static class InnerSharedTask<T> {
+        private final Object mKey;
+        private final ArrayList<CallbackToFutureAdapter.Completer<T>> mCompleters =
+                new ArrayList<>();
+        private ListenableFuture<T> mSource;
+        private boolean mClosed;
+
+        InnerSharedTask(Object key) {
+            mKey = key;
+        }
+
+        /**
+         * 订阅结果
+         *
+         * @return 已完成或已取消时返回false
+         */
+        synchronized boolean subscribe(CallbackToFutureAdapter.Completer<T> completer) {
+            if (mClosed) {
+                return false;
             }
+            mCompleters.add(completer);
+            completer.addCancellationListener(() -> unsubscribe(completer), Runnable::run);
+            return true;
+        }
 
-            // 2. 优先级相同时，按照排序方式处理
-            if (mSort == other.mSort) {
-                // 相同排序方式，按时间戳排序
-                if (mSort == SORT_STACKS) {
-                    // 先进先出，时间戳小的排前面
-                    return Long.compare(mTimestamp, other.mTimestamp);
-                } else {
-                    // 后进先出，时间戳大的排前面
-                    return Long.compare(other.mTimestamp, mTimestamp);
+        private void unsubscribe(CallbackToFutureAdapter.Completer<T> completer) {
+            final ListenableFuture<T> source;
+            synchronized (this) {
+                if (!mCompleters.remove(completer) || !mCompleters.isEmpty() || mClosed) {
+                    return;
                 }
-            } else {
-                // 不同排序方式：SORT_STACKS(0) 优先于 SORT_QUEUES(1)
-                return Integer.compare(mSort, other.mSort);
+                mClosed = true;
+                source = mSource;
+            }
+            sSharedTasks.remove(mKey, this);
+            if (source != null) {
+                source.cancel(true);
             }
         }
-    }
 
-    private static class InnerComparator implements Comparator<Runnable> {
+        void start(ListenableFuture<T> source) {
+            synchronized (this) {
+                mSource = source;
+            }
+            source.addListener(this::onComplete, Runnable::run);
+        }
 
-        @Override
-        public int compare(Runnable o1, Runnable o2) {
-            if (o1 instanceof InnerTask && o2 instanceof InnerTask) {
-                return ((InnerTask<?>) o1).compareTo((InnerTask<?>) o2);
+        private void onComplete() {
+            final ArrayList<CallbackToFutureAdapter.Completer<T>> completers;
+            synchronized (this) {
+                mClosed = true;
+                completers = new ArrayList<>(mCompleters);
+                mCompleters.clear();
+            }
+            sSharedTasks.remove(mKey, this);
+            final ListenableFuture<T> source = mSource;
+            for (CallbackToFutureAdapter.Completer<T> completer : completers) {
+                try {
+                    completer.set(source.get());
+                } catch (ExecutionException e) {
+                    completer.setException(e.getCause());
+                } catch (CancellationException e) {
+                    completer.setCancelled();
+                } catch (Throwable t) {
+                    completer.setException(t);
+                }
             }
-            return 0;
         }
     }
 
     private static class InnerThreadFactory implements ThreadFactory {
 
         private final AtomicInteger mCount = new AtomicInteger(1);
+        private final String mName;
+
+        InnerThreadFactory(String name) {
+            mName = name;
+        }
 
         @Override
         public Thread newThread(Runnable r) {
-            return new Thread(r, "Job #" + mCount.getAndIncrement()) {
+            return new Thread(r, mName + mCount.getAndIncrement()) {
 
                 @Override
                 public void run() {
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.concurrent;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务线程池
+ * 有积压时线程数在核心线程数与最大线程数之间伸缩，队列有界，已满时按背压策略处理，并统计队列长度与等待时间。
+ * Created by Alex on 2026/10/18.
+ */
+public class TaskExecutor extends ThreadPoolExecutor {
+
+    /**
+     * 队列已满时由提交线程执行
+     */
+    public static final int BACK_PRESSURE_CALLER_RUNS = 0;
+    /**
+     * 队列已满时阻塞提交线程直到有空位
+     */
+    public static final int BACK_PRESSURE_BLOCK = 1;
+    /**
+     * 队列已满时抛出 {@link java.util.concurrent.RejectedExecutionException}
+     */
+    public static final int BACK_PRESSURE_ABORT = 2;
+    /**
+     * 队列已满时，主线程提交抛出 {@link java.util.concurrent.RejectedExecutionException}，
+     * 其他线程阻塞直到有空位，任务不会在主线程执行，也不会阻塞主线程
+     */
+    public static final int BACK_PRESSURE_BLOCK_OFF_MAIN = 3;
+
+    /**
+     * 创建任务线程池
+     *
+     * @param corePoolSize    核心线程数
+     * @param maximumPoolSize 最大线程数
+     * @param keepAliveTime   空闲线程存活时间
+     * @param unit            时间单位
+     * @param capacity        队列容量
+     * @param backPressure    背压策略
+     * @param threadFactory   线程工厂
+     */
+    public TaskExecutor(int corePoolSize, int maximumPoolSize,
+                        long keepAliveTime, @NonNull TimeUnit unit,
+                        int capacity, int backPressure,
+                        @NonNull ThreadFactory threadFactory) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit,
+                new TaskQueue(capacity), threadFactory, new TaskQueue.RejectedHandler(backPressure));
+    }
+
+    /**
+     * 创建任务线程池，用于 {@link ListenableFutureHelper.ExecutorServiceBuilder}
+     *
+     * @param corePoolSize    核心线程数
+     * @param maximumPoolSize 最大线程数
+     * @param keepAliveTime   空闲线程存活时间
+     * @param unit            时间单位
+     * @param workQueue       任务队列
+     * @param threadFactory   线程工厂
+     * @param handler         拒绝处理
+     */
+    public TaskExecutor(int corePoolSize, int maximumPoolSize,
+                        long keepAliveTime, @NonNull TimeUnit unit,
+                        @NonNull BlockingQueue<Runnable> workQueue,
+                        @NonNull ThreadFactory threadFactory,
+                        @NonNull RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                threadFactory, handler);
+        if (workQueue instanceof TaskQueue) {
+            ((TaskQueue) workQueue).attach(this);
+        }
+    }
+
+    /**
+     * 获取队列长度
+     *
+     * @return 队列长度
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * 获取队列长度峰值
+     *
+     * @return 队列长度峰值，不支持时返回-1
+     */
+    public int getPeakQueueDepth() {
+        final BlockingQueue<Runnable> queue = getQueue();
+        return queue instanceof TaskQueue ? ((TaskQueue) queue).getPeakSize() : -1;
+    }
+
+    /**
+     * 获取经过队列的任务的平均等待时间
+     *
+     * @param unit 时间单位
+     * @return 平均等待时间，不支持时返回-1
+     */
+    public long getAverageWaitTime(@NonNull TimeUnit unit) {
+        final BlockingQueue<Runnable> queue = getQueue();
+        return queue instanceof TaskQueue ?
+                unit.convert(((TaskQueue) queue).getAverageWaitTime(), TimeUnit.NANOSECONDS) : -1;
+    }
+
+    /**
+     * 获取经过队列的任务的最长等待时间
+     *
+     * @param unit 时间单位
+     * @return 最长等待时间，不支持时返回-1
+     */
+    public long getMaxWaitTime(@NonNull TimeUnit unit) {
+        final BlockingQueue<Runnable> queue = getQueue();
+        return queue instanceof TaskQueue ?
+                unit.convert(((TaskQueue) queue).getMaxWaitTime(), TimeUnit.NANOSECONDS) : -1;
+    }
+
+    /**
+     * 获取经过队列的任务数
+     *
+     * @return 任务数，不支持时返回-1
+     */
+    public long getQueuedTaskCount() {
+        final BlockingQueue<Runnable> queue = getQueue();
+        return queue instanceof TaskQueue ? ((TaskQueue) queue).getTakenCount() : -1;
+    }
+
+    /**
+     * 重置队列统计
+     */
+    public void resetStatistics() {
+        final BlockingQueue<Runnable> queue = getQueue();
+        if (queue instanceof TaskQueue) {
+            ((TaskQueue) queue).resetStatistics();
+        }
+    }
+}
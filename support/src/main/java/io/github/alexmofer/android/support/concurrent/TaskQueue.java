@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.concurrent;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 任务队列
+ * 有界优先队列，每个优先级与排序方式对应一个无锁双端队列，入队与出队为常数时间，仅在有线程等待时加锁唤醒。
+ * 关联线程池后，没有空闲线程且线程数未达上限时拒绝入队，使线程池创建新线程，
+ * 被拒绝的任务由 {@link RejectedHandler} 再次入队，队列已满时按背压策略处理。
+ * Created by Alex on 2026/10/18.
+ */
+final class TaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final int LEVELS = ListenableFutureHelper.PRIORITY_VERY_HIGH
+            - ListenableFutureHelper.PRIORITY_VERY_LOW + 1;
+    private static final ThreadLocal<Boolean> sCallerRuns = new ThreadLocal<>();
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mNotEmpty = mLock.newCondition();
+    private final Condition mNotFull = mLock.newCondition();
+    // 按优先级从高到低排列，同一优先级先进先出在前，先进后出在后
+    private final ConcurrentLinkedDeque<Entry>[] mDeques;
+    private final int mCapacity;
+    private final AtomicInteger mCount = new AtomicInteger();
+    private final AtomicInteger mTakers = new AtomicInteger();
+    private final AtomicInteger mPutters = new AtomicInteger();
+    private final AtomicInteger mPeakSize = new AtomicInteger();
+    private final AtomicLong mTaken = new AtomicLong();
+    private final AtomicLong mTotalWait = new AtomicLong();
+    private final AtomicLong mMaxWait = new AtomicLong();
+    private volatile ThreadPoolExecutor mExecutor;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TaskQueue(int capacity) {
+        mCapacity = Math.max(1, capacity);
+        mDeques = new ConcurrentLinkedDeque[LEVELS * 2];
+        for (int i = 0; i < mDeques.length; i++) {
+            mDeques[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    /**
+     * 关联线程池
+     *
+     * @param executor 线程池
+     */
+    void attach(@NonNull ThreadPoolExecutor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * 入队，线程池应当创建新线程时返回false
+     */
+    @Override
+    public boolean offer(@NonNull Runnable runnable) {
+        final ThreadPoolExecutor executor = mExecutor;
+        if (executor != null && mTakers.get() <= mCount.get() &&
+                executor.getPoolSize() < executor.getMaximumPoolSize()) {
+            return false;
+        }
+        return force(runnable);
+    }
+
+    /**
+     * 入队，不考虑线程池是否可以创建新线程
+     *
+     * @param runnable 任务
+     * @return 队列已满时返回false
+     */
+    boolean force(@NonNull Runnable runnable) {
+        if (!enqueue(runnable)) {
+            return false;
+        }
+        signal(mTakers, mNotEmpty);
+        return true;
+    }
+
+    private boolean enqueue(Runnable runnable) {
+        int count;
+        do {
+            count = mCount.get();
+            if (count >= mCapacity) {
+                return false;
+            }
+        } while (!mCount.compareAndSet(count, count + 1));
+        int peak;
+        while (count + 1 > (peak = mPeakSize.get())) {
+            if (mPeakSize.compareAndSet(peak, count + 1)) {
+                break;
+            }
+        }
+        int priority = ListenableFutureHelper.PRIORITY_NORMAL;
+        int sort = ListenableFutureHelper.SORT_STACKS;
+        if (runnable instanceof Prioritized) {
+            priority = ((Prioritized) runnable).getPriority();
+            sort = ((Prioritized) runnable).getSort();
+        }
+        priority = Math.max(ListenableFutureHelper.PRIORITY_VERY_LOW,
+                Math.min(ListenableFutureHelper.PRIORITY_VERY_HIGH, priority));
+        final int level = ListenableFutureHelper.PRIORITY_VERY_HIGH - priority;
+        final Entry entry = new Entry(runnable);
+        if (sort == ListenableFutureHelper.SORT_QUEUES) {
+            mDeques[level * 2 + 1].addFirst(entry);
+        } else {
+            mDeques[level * 2].addLast(entry);
+        }
+        return true;
+    }
+
+    @Nullable
+    private Entry pollEntry() {
+        for (ConcurrentLinkedDeque<Entry> deque : mDeques) {
+            final Entry entry = deque.pollFirst();
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Runnable dequeue() {
+        final Entry entry = pollEntry();
+        if (entry == null) {
+            return null;
+        }
+        mCount.decrementAndGet();
+        signal(mPutters, mNotFull);
+        final long wait = System.nanoTime() - entry.mTime;
+        mTaken.incrementAndGet();
+        mTotalWait.addAndGet(wait);
+        long max;
+        while (wait > (max = mMaxWait.get())) {
+            if (mMaxWait.compareAndSet(max, wait)) {
+                break;
+            }
+        }
+        return entry.mCommand;
+    }
+
+    private void signal(AtomicInteger waiters, Condition condition) {
+        // 等待者先登记再检查，入队或出队后检查登记数即可避免丢失唤醒
+        if (waiters.get() > 0) {
+            mLock.lock();
+            try {
+                condition.signal();
+            } finally {
+                mLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void put(@NonNull Runnable runnable) throws InterruptedException {
+        if (!offer(runnable, Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException();
+        }
+    }
+
+    @Override
+    public boolean offer(@NonNull Runnable runnable, long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException {
+        if (force(runnable)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        mLock.lockInterruptibly();
+        mPutters.incrementAndGet();
+        try {
+            while (!enqueue(runnable)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = mNotFull.awaitNanos(nanos);
+            }
+        } finally {
+            mPutters.decrementAndGet();
+            mLock.unlock();
+        }
+        signal(mTakers, mNotEmpty);
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public Runnable take() throws InterruptedException {
+        final Runnable runnable = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (runnable == null) {
+            throw new IllegalStateException();
+        }
+        return runnable;
+    }
+
+    @Override
+    public Runnable poll(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        Runnable runnable = dequeue();
+        if (runnable != null) {
+            return runnable;
+        }
+        long nanos = unit.toNanos(timeout);
+        mLock.lockInterruptibly();
+        mTakers.incrementAndGet();
+        try {
+            while ((runnable = dequeue()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = mNotEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            mTakers.decrementAndGet();
+            mLock.unlock();
+        }
+        if (mCount.get() > 0) {
+            // 传递唤醒，避免同时入队多个任务时其他等待者未被唤醒
+            signal(mTakers, mNotEmpty);
+        }
+        return runnable;
+    }
+
+    @Override
+    public Runnable poll() {
+        return dequeue();
+    }
+
+    @Override
+    public Runnable peek() {
+        for (ConcurrentLinkedDeque<Entry> deque : mDeques) {
+            final Entry entry = deque.peekFirst();
+            if (entry != null) {
+                return entry.mCommand;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        for (ConcurrentLinkedDeque<Entry> deque : mDeques) {
+            for (Entry entry : deque) {
+                if (entry.mCommand == o) {
+                    if (deque.removeFirstOccurrence(entry)) {
+                        mCount.decrementAndGet();
+                        signal(mPutters, mNotFull);
+                        return true;
+                    }
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, mCount.get());
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, mCapacity - mCount.get());
+    }
+
+    /**
+     * 快照迭代，不支持移除
+     */
+    @NonNull
+    @Override
+    public Iterator<Runnable> iterator() {
+        final ArrayList<Runnable> commands = new ArrayList<>();
+        for (ConcurrentLinkedDeque<Entry> deque : mDeques) {
+            for (Entry entry : deque) {
+                commands.add(entry.mCommand);
+            }
+        }
+        final Iterator<Runnable> iterator = commands.iterator();
+        return new Iterator<Runnable>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    @Override
+    public int drainTo(@NonNull Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(@NonNull Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int count = 0;
+        Entry entry;
+        while (count < maxElements && (entry = pollEntry()) != null) {
+            mCount.decrementAndGet();
+            c.add(entry.mCommand);
+            count++;
+        }
+        if (count > 0 && mPutters.get() > 0) {
+            mLock.lock();
+            try {
+                mNotFull.signalAll();
+            } finally {
+                mLock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取队列长度峰值
+     *
+     * @return 队列长度峰值
+     */
+    int getPeakSize() {
+        return mPeakSize.get();
+    }
+
+    /**
+     * 获取出队任务数
+     *
+     * @return 出队任务数
+     */
+    long getTakenCount() {
+        return mTaken.get();
+    }
+
+    /**
+     * 获取出队任务的平均等待时间
+     *
+     * @return 平均等待时间（纳秒）
+     */
+    long getAverageWaitTime() {
+        final long taken = mTaken.get();
+        return taken <= 0 ? 0 : mTotalWait.get() / taken;
+    }
+
+    /**
+     * 获取出队任务的最长等待时间
+     *
+     * @return 最长等待时间（纳秒）
+     */
+    long getMaxWaitTime() {
+        return mMaxWait.get();
+    }
+
+    /**
+     * 重置统计
+     */
+    void resetStatistics() {
+        mPeakSize.set(size());
+        mTaken.set(0);
+        mTotalWait.set(0);
+        mMaxWait.set(0);
+    }
+
+    /**
+     * 带优先级的任务
+     */
+    interface Prioritized {
+
+        int getPriority();
+
+        int getSort();
+    }
+
+    /**
+     * 判断当前线程是否正在按 {@link TaskExecutor#BACK_PRESSURE_CALLER_RUNS} 执行被拒绝的任务
+     *
+     * @return 由提交线程执行时返回true
+     */
+    static boolean isCallerRuns() {
+        return sCallerRuns.get() != null;
+    }
+
+    private static final class Entry {
+        private final Runnable mCommand;
+        private final long mTime;
+
+        Entry(Runnable command) {
+            mCommand = command;
+            mTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * 拒绝处理，队列未满时入队，否则按背压策略处理
+     */
+    static final class RejectedHandler implements RejectedExecutionHandler {
+
+        private final int mBackPressure;
+
+        RejectedHandler(int backPressure) {
+            mBackPressure = backPressure;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                if (mBackPressure == TaskExecutor.BACK_PRESSURE_ABORT) {
+                    throw new RejectedExecutionException("Executor is shutdown.");
+                }
+                return;
+            }
+            final BlockingQueue<Runnable> queue = executor.getQueue();
+            if (queue instanceof TaskQueue && ((TaskQueue) queue).force(r)) {
+                return;
+            }
+            switch (mBackPressure) {
+                case TaskExecutor.BACK_PRESSURE_BLOCK_OFF_MAIN:
+                    if (Looper.myLooper() == Looper.getMainLooper()) {
+                        throw new RejectedExecutionException("Task queue is full.");
+                    }
+                    put(queue, r);
+                    break;
+                case TaskExecutor.BACK_PRESSURE_BLOCK:
+                    put(queue, r);
+                    break;
+                case TaskExecutor.BACK_PRESSURE_ABORT:
+                    throw new RejectedExecutionException("Task queue is full.");
+                default:
+                    final Boolean previous = sCallerRuns.get();
+                    sCallerRuns.set(Boolean.TRUE);
+                    try {
+                        r.run();
+                    } finally {
+                        if (previous == null) {
+                            sCallerRuns.remove();
+                        }
+                    }
+                    break;
+            }
+        }
+
+        private static void put(BlockingQueue<Runnable> queue, Runnable r) {
+            try {
+                queue.put(r);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting.", e);
+            }
+        }
+    }
+}
@@ -2,21 +2,43 @@ package io.github.alexmofer.android.support.concurrent;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
 
 import androidx.core.os.HandlerCompat;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * UI线程执行者
+ * 合并模式下回调先进入无锁队列，每帧在一次帧回调内依次执行，超出单帧时间预算后剩余回调推迟到下一帧。
  * Created by Alex on 2025/2/17.
  */
 public class UIThreadExecutor implements Executor {
+    public static final long DEFAULT_FRAME_BUDGET = 8;// 毫秒
     private static UIThreadExecutor sDefault;
+    private static UIThreadExecutor sCoalescing;
     private final Handler mHandler;
+    private final long mFrameBudget;
+    private final ConcurrentLinkedQueue<Runnable> mPending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+    private final Runnable mScheduler = this::postFrameCallback;
+    private final Choreographer.FrameCallback mFrameCallback = this::doFrame;
 
     public UIThreadExecutor() {
+        this(0);
+    }
+
+    /**
+     * 创建UI线程执行者
+     *
+     * @param frameBudget 合并模式每帧时间预算（毫秒），小于等于0时不合并，每个回调单独发送消息
+     */
+    public UIThreadExecutor(long frameBudget) {
         mHandler = HandlerCompat.createAsync(Looper.getMainLooper());
+        mFrameBudget = TimeUnit.MILLISECONDS.toNanos(Math.max(0, frameBudget));
     }
 
     public static synchronized UIThreadExecutor getDefault() {
@@ -26,9 +48,66 @@ public class UIThreadExecutor implements Executor {
         return sDefault;
     }
 
+    /**
+     * 获取合并模式的UI线程执行者
+     *
+     * @return 合并模式的UI线程执行者
+     */
+    public static synchronized UIThreadExecutor getCoalescing() {
+        if (sCoalescing == null) {
+            sCoalescing = new UIThreadExecutor(DEFAULT_FRAME_BUDGET);
+        }
+        return sCoalescing;
+    }
+
     @Override
     public void execute(Runnable command) {
-        mHandler.post(command);
+        if (mFrameBudget <= 0) {
+            mHandler.post(command);
+            return;
+        }
+        mPending.offer(command);
+        if (mScheduled.compareAndSet(false, true)) {
+            // Choreographer 需在主线程获取
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                postFrameCallback();
+            } else {
+                mHandler.post(mScheduler);
+            }
+        }
+    }
+
+    private void postFrameCallback() {
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        final long deadline = System.nanoTime() + mFrameBudget;
+        Runnable command;
+        while ((command = mPending.poll()) != null) {
+            command.run();
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        if (!mPending.isEmpty()) {
+            postFrameCallback();
+            return;
+        }
+        mScheduled.set(false);
+        // 清除标记前入队的回调不会再次调度，需重新检查
+        if (!mPending.isEmpty() && mScheduled.compareAndSet(false, true)) {
+            postFrameCallback();
+        }
+    }
+
+    /**
+     * 判断是否为合并模式
+     *
+     * @return 合并模式时返回true
+     */
+    public boolean isCoalescing() {
+        return mFrameBudget > 0;
     }
 
     /**
@@ -39,4 +118,4 @@ public class UIThreadExecutor implements Executor {
     public Handler getHandler() {
         return mHandler;
     }
-}
\ No newline at end of file
+}
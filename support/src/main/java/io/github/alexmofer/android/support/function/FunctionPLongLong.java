@@ -0,0 +1,13 @@
+package io.github.alexmofer.android.support.function;
+
+/**
+ * 方法
+ * Created by Alex on 2026/10/18.
+ */
+@FunctionalInterface
+public interface FunctionPLongLong {
+    /**
+     * 执行
+     */
+    void execute(long param1, long param2);
+}
@@ -15,12 +15,19 @@
  */
 package io.github.alexmofer.android.support.security;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
@@ -37,6 +44,7 @@ public class AESUtil {
     private final static String ALGORITHM = "AES";
     private final static String TRANSFORMATION = "AES/CBC/PKCS5Padding";
     private final static int SIZE = 256;
+    private final static IvParameterSpec IV = new IvParameterSpec(new byte[16]);
 
 
     /**
@@ -59,11 +67,9 @@ public class AESUtil {
             InvalidAlgorithmParameterException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final SecretKeySpec secretKeySpec = new SecretKeySpec(key, ALGORITHM);
-        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, new IvParameterSpec(
-                new byte[cipher.getBlockSize()]));
-        return cipher.doFinal(clear);
+        final Cipher cipher = CryptoCache.obtainCipher(TRANSFORMATION, Cipher.ENCRYPT_MODE,
+                new SecretKeySpec(key, ALGORITHM), IV);
+        return CryptoCache.doFinal(cipher, clear);
     }
 
     /**
@@ -86,11 +92,122 @@ public class AESUtil {
             InvalidAlgorithmParameterException,
             IllegalBlockSizeException,
             BadPaddingException {
+        final Cipher cipher = CryptoCache.obtainCipher(TRANSFORMATION, Cipher.DECRYPT_MODE,
+                new SecretKeySpec(key, ALGORITHM), IV);
+        return CryptoCache.doFinal(cipher, encrypted);
+    }
+
+    /**
+     * 获取已初始化的 Cipher
+     *
+     * @param key    密钥字节
+     * @param opmode {@link Cipher#ENCRYPT_MODE} 或 {@link Cipher#DECRYPT_MODE}
+     * @return Cipher
+     * @throws NoSuchAlgorithmException           异常
+     * @throws NoSuchPaddingException             异常
+     * @throws InvalidKeyException                异常
+     * @throws InvalidAlgorithmParameterException 异常
+     */
+    public static Cipher getCipher(byte[] key, int opmode) throws
+            NoSuchAlgorithmException,
+            NoSuchPaddingException,
+            InvalidKeyException,
+            InvalidAlgorithmParameterException {
         final SecretKeySpec secretKeySpec = new SecretKeySpec(key, ALGORITHM);
         final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, new IvParameterSpec(
+        cipher.init(opmode, secretKeySpec, new IvParameterSpec(
                 new byte[cipher.getBlockSize()]));
-        return cipher.doFinal(encrypted);
+        return cipher;
+    }
+
+    /**
+     * 加密，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param key    密钥字节
+     * @param input  明文输入流
+     * @param output 密文输出流
+     * @return 密文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long encrypt(byte[] key, InputStream input, OutputStream output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, Cipher.ENCRYPT_MODE), input, output);
+    }
+
+    /**
+     * 解密，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param key    密钥字节
+     * @param input  密文输入流
+     * @param output 明文输出流
+     * @return 明文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long decrypt(byte[] key, InputStream input, OutputStream output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, Cipher.DECRYPT_MODE), input, output);
+    }
+
+    /**
+     * 加密，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param key    密钥字节
+     * @param input  明文通道
+     * @param output 密文通道
+     * @return 密文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long encrypt(byte[] key, FileChannel input, FileChannel output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, Cipher.ENCRYPT_MODE), input, output);
+    }
+
+    /**
+     * 解密，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param key    密钥字节
+     * @param input  密文通道
+     * @param output 明文通道
+     * @return 明文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long decrypt(byte[] key, FileChannel input, FileChannel output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, Cipher.DECRYPT_MODE), input, output);
+    }
+
+    /**
+     * 创建加密输出流，写入明文，关闭时写出末尾数据块
+     *
+     * @param key    密钥字节
+     * @param output 密文输出流
+     * @return 加密输出流
+     * @throws GeneralSecurityException 异常
+     */
+    public static OutputStream newEncryptOutputStream(byte[] key, OutputStream output) throws
+            GeneralSecurityException {
+        return new CipherOutputStream(output, getCipher(key, Cipher.ENCRYPT_MODE));
+    }
+
+    /**
+     * 创建解密输入流，读取明文
+     *
+     * @param key   密钥字节
+     * @param input 密文输入流
+     * @return 解密输入流
+     * @throws GeneralSecurityException 异常
+     */
+    public static InputStream newDecryptInputStream(byte[] key, InputStream input) throws
+            GeneralSecurityException {
+        return new CipherInputStream(input, getCipher(key, Cipher.DECRYPT_MODE));
     }
 
     /**
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+
+/**
+ * 流式加解密
+ * 数据分段交给 Cipher 处理，输入输出缓冲区在整个过程中复用，内存占用与数据大小无关。
+ * Created by Alex on 2026/10/18.
+ */
+final class CipherUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CipherUtils() {
+        //no instance
+    }
+
+    /**
+     * 转换，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param cipher 已初始化的 Cipher
+     * @param input  输入流
+     * @param output 输出流
+     * @return 输出字节数
+     * @throws IOException              读写错误
+     * @throws GeneralSecurityException 加解密错误
+     */
+    static long transform(Cipher cipher, InputStream input, OutputStream output)
+            throws IOException, GeneralSecurityException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] result = new byte[cipher.getOutputSize(BUFFER_SIZE)];
+        long total = 0;
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            final int size = cipher.getOutputSize(count);
+            if (result.length < size) {
+                result = new byte[size];
+            }
+            final int length = cipher.update(buffer, 0, count, result, 0);
+            output.write(result, 0, length);
+            total += length;
+        }
+        final int size = cipher.getOutputSize(0);
+        if (result.length < size) {
+            result = new byte[size];
+        }
+        final int length = cipher.doFinal(result, 0);
+        output.write(result, 0, length);
+        total += length;
+        return total;
+    }
+
+    /**
+     * 转换，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param cipher 已初始化的 Cipher
+     * @param input  输入通道
+     * @param output 输出通道
+     * @return 输出字节数
+     * @throws IOException              读写错误
+     * @throws GeneralSecurityException 加解密错误
+     */
+    static long transform(Cipher cipher, FileChannel input, FileChannel output)
+            throws IOException, GeneralSecurityException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer result = ByteBuffer.allocate(cipher.getOutputSize(BUFFER_SIZE));
+        long total = 0;
+        while (input.read(buffer) != -1) {
+            buffer.flip();
+            result = ensureCapacity(result, cipher.getOutputSize(buffer.remaining()));
+            cipher.update(buffer, result);
+            total += write(output, result);
+            buffer.clear();
+        }
+        buffer.flip();
+        result = ensureCapacity(result, cipher.getOutputSize(0));
+        cipher.doFinal(buffer, result);
+        total += write(output, result);
+        return total;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
+        if (buffer.capacity() < size) {
+            return ByteBuffer.allocate(size);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private static int write(FileChannel output, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        return length;
+    }
+}
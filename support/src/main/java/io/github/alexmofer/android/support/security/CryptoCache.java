@@ -0,0 +1,490 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.security;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.IvParameterSpec;
+
+import io.github.alexmofer.android.support.utils.ByteUtils;
+
+/**
+ * 加解密实例缓存
+ * 已初始化的 Cipher、Signature 与 KeyFactory 按线程缓存，以算法、模式、密钥与 IV 区分；
+ * 解析后的密钥与 PBE 口令密钥全局缓存，以密钥编码的摘要为索引。各缓存均有容量上限，按最近最少使用淘汰。
+ * Created by Alex on 2026/10/18.
+ */
+public final class CryptoCache {
+
+    public static final int TYPE_CIPHER = 0;
+    public static final int TYPE_SIGNATURE = 1;
+    public static final int TYPE_KEY_FACTORY = 2;
+    public static final int TYPE_KEY = 3;
+    public static final int TYPE_PBE_KEY = 4;
+    private static final int TYPE_COUNT = 5;
+    private static final int MODE_NONE = 0;
+    private static final int MODE_PUBLIC = 1;
+    private static final int MODE_PRIVATE = 2;
+    private static final int MODE_SIGN = 1;
+    private static final int MODE_VERIFY = 2;
+    private static final int MAX_INSTANCES_PER_THREAD = 16;
+    private static final int MAX_KEYS = 64;
+    private static final int MAX_PBE_KEYS = 16;
+    private static final AtomicLongArray sHits = new AtomicLongArray(TYPE_COUNT);
+    private static final AtomicLongArray sMisses = new AtomicLongArray(TYPE_COUNT);
+    // 各线程的实例缓存，线程结束后自动移除
+    private static final Set<Instances> sAllInstances =
+            Collections.newSetFromMap(new WeakHashMap<>());
+    private static final ThreadLocal<Instances> sInstances = new ThreadLocal<Instances>() {
+        @Override
+        protected Instances initialValue() {
+            final Instances instances = new Instances();
+            synchronized (sAllInstances) {
+                sAllInstances.add(instances);
+            }
+            return instances;
+        }
+    };
+    private static final LruCache<Id, Key> sKeys = new LruCache<>(MAX_KEYS);
+    private static final LruCache<String, byte[]> sPBEKeys = new LruCache<>(MAX_PBE_KEYS);
+    private static volatile boolean sEnabled = true;
+
+    private CryptoCache() {
+        //no instance
+    }
+
+    /**
+     * 设置是否启用缓存，关闭时同时清空缓存
+     *
+     * @param enabled 是否启用
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * 清空缓存，包括全部线程的实例缓存
+     */
+    public static void clear() {
+        synchronized (sAllInstances) {
+            for (Instances instances : sAllInstances) {
+                instances.get().evictAll();
+            }
+        }
+        sKeys.evictAll();
+        sPBEKeys.evictAll();
+    }
+
+    /**
+     * 获取命中次数
+     *
+     * @param type 缓存类型
+     * @return 命中次数
+     */
+    public static long getHitCount(int type) {
+        return sHits.get(type);
+    }
+
+    /**
+     * 获取未命中次数
+     *
+     * @param type 缓存类型
+     * @return 未命中次数
+     */
+    public static long getMissCount(int type) {
+        return sMisses.get(type);
+    }
+
+    /**
+     * 重置命中统计
+     */
+    public static void resetStats() {
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            sHits.set(i, 0);
+            sMisses.set(i, 0);
+        }
+    }
+
+    /**
+     * 获取已初始化的 Cipher，仅限在当前线程内一次性使用（完成 doFinal）
+     * 参数为 {@link IvParameterSpec} 时以 IV 区分缓存，其他参数无法比较，不缓存。
+     */
+    static Cipher obtainCipher(String transformation, int opmode, Key key,
+                               @Nullable AlgorithmParameterSpec params) throws
+            NoSuchAlgorithmException,
+            NoSuchPaddingException,
+            InvalidKeyException,
+            InvalidAlgorithmParameterException {
+        if (params != null && !(params instanceof IvParameterSpec)) {
+            final Cipher cipher = Cipher.getInstance(transformation);
+            cipher.init(opmode, key, params);
+            return cipher;
+        }
+        final Id id = new Id(TYPE_CIPHER, transformation, opmode, key,
+                params == null ? null : ((IvParameterSpec) params).getIV());
+        final Cipher cached = (Cipher) getInstance(id);
+        if (cached != null) {
+            return cached;
+        }
+        final Cipher cipher = Cipher.getInstance(transformation);
+        if (params == null) {
+            cipher.init(opmode, key);
+        } else {
+            cipher.init(opmode, key, params);
+        }
+        putInstance(id, cipher);
+        return cipher;
+    }
+
+    /**
+     * 获取已初始化的 Cipher，仅限在当前线程内一次性使用（完成 doFinal）
+     */
+    static Cipher obtainCipher(String transformation, int opmode, Key key) throws
+            NoSuchAlgorithmException,
+            NoSuchPaddingException,
+            InvalidKeyException {
+        final Id id = new Id(TYPE_CIPHER, transformation, opmode, key, null);
+        final Cipher cached = (Cipher) getInstance(id);
+        if (cached != null) {
+            return cached;
+        }
+        final Cipher cipher = Cipher.getInstance(transformation);
+        cipher.init(opmode, key);
+        putInstance(id, cipher);
+        return cipher;
+    }
+
+    /**
+     * 完成加解密，出错时 Cipher 状态未知，将其移出缓存
+     */
+    static byte[] doFinal(Cipher cipher, byte[] input) throws
+            IllegalBlockSizeException,
+            BadPaddingException {
+        try {
+            return cipher.doFinal(input);
+        } catch (IllegalBlockSizeException | BadPaddingException | RuntimeException e) {
+            removeInstance(cipher);
+            throw e;
+        }
+    }
+
+    /**
+     * 完成加解密，出错时 Cipher 状态未知，将其移出缓存
+     */
+    static byte[] doFinal(Cipher cipher, byte[] input, int offset, int len) throws
+            IllegalBlockSizeException,
+            BadPaddingException {
+        try {
+            return cipher.doFinal(input, offset, len);
+        } catch (IllegalBlockSizeException | BadPaddingException | RuntimeException e) {
+            removeInstance(cipher);
+            throw e;
+        }
+    }
+
+    /**
+     * 签名，Signature 在当前线程内复用
+     */
+    static byte[] sign(String algorithm, PrivateKey key, byte[] data) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException,
+            SignatureException {
+        final Signature signature = obtainSignature(algorithm, MODE_SIGN, key);
+        try {
+            signature.update(data);
+            return signature.sign();
+        } catch (SignatureException | RuntimeException e) {
+            removeInstance(signature);
+            throw e;
+        }
+    }
+
+    /**
+     * 校验签名，Signature 在当前线程内复用
+     */
+    static boolean verify(String algorithm, PublicKey key, byte[] data, byte[] sign) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException,
+            SignatureException {
+        final Signature signature = obtainSignature(algorithm, MODE_VERIFY, key);
+        try {
+            signature.update(data);
+            return signature.verify(sign);
+        } catch (SignatureException | RuntimeException e) {
+            removeInstance(signature);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取公钥（X.509 编码）
+     */
+    static PublicKey getPublicKey(String algorithm, byte[] encoded) throws
+            NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        final Id id = Id.ofEncoded(algorithm, MODE_PUBLIC, encoded);
+        final Key cached = getKey(id);
+        if (cached != null) {
+            return (PublicKey) cached;
+        }
+        final PublicKey key = getKeyFactory(algorithm)
+                .generatePublic(new X509EncodedKeySpec(encoded));
+        putKey(id, key);
+        return key;
+    }
+
+    /**
+     * 获取私钥（PKCS#8 编码）
+     */
+    static PrivateKey getPrivateKey(String algorithm, byte[] encoded) throws
+            NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        final Id id = Id.ofEncoded(algorithm, MODE_PRIVATE, encoded);
+        final Key cached = getKey(id);
+        if (cached != null) {
+            return (PrivateKey) cached;
+        }
+        final PrivateKey key = getKeyFactory(algorithm)
+                .generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        putKey(id, key);
+        return key;
+    }
+
+    /**
+     * 获取对称密钥
+     */
+    static Key getSecretKey(String algorithm, byte[] encoded, SecretKeyLoader loader) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException,
+            InvalidKeySpecException {
+        final Id id = Id.ofEncoded(algorithm, MODE_NONE, encoded);
+        final Key cached = getKey(id);
+        if (cached != null) {
+            return cached;
+        }
+        final Key key = loader.load(encoded);
+        putKey(id, key);
+        return key;
+    }
+
+    /**
+     * 获取 PBE 口令密钥，以口令等参数的摘要为索引，不保存口令原文
+     */
+    static byte[] getPBEKey(String algorithm, char[] password, byte[] salt,
+                            int iterationCount, int size, PBEKeyLoader loader) throws
+            NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        if (!sEnabled) {
+            return loader.load();
+        }
+        final MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update(algorithm.getBytes());
+        final ByteBuffer chars = ByteBuffer.allocate(password.length * 2);
+        for (char c : password) {
+            chars.putChar(c);
+        }
+        md.update(chars.array());
+        Arrays.fill(chars.array(), (byte) 0);
+        md.update(ByteBuffer.allocate(12).putInt(salt.length)
+                .putInt(iterationCount).putInt(size).array());
+        md.update(salt);
+        final String id = ByteUtils.toHexString(md.digest(), false);
+        final byte[] cached = sPBEKeys.get(id);
+        if (cached != null) {
+            sHits.incrementAndGet(TYPE_PBE_KEY);
+            return cached.clone();
+        }
+        sMisses.incrementAndGet(TYPE_PBE_KEY);
+        final byte[] key = loader.load();
+        sPBEKeys.put(id, key.clone());
+        return key;
+    }
+
+    private static KeyFactory getKeyFactory(String algorithm) throws NoSuchAlgorithmException {
+        final Id id = new Id(TYPE_KEY_FACTORY, algorithm, MODE_NONE, null, null);
+        final KeyFactory cached = (KeyFactory) getInstance(id);
+        if (cached != null) {
+            return cached;
+        }
+        final KeyFactory factory = KeyFactory.getInstance(algorithm);
+        putInstance(id, factory);
+        return factory;
+    }
+
+    private static Signature obtainSignature(String algorithm, int mode, Key key) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException {
+        final Id id = new Id(TYPE_SIGNATURE, algorithm, mode, key, null);
+        final Signature cached = (Signature) getInstance(id);
+        if (cached != null) {
+            return cached;
+        }
+        final Signature signature = Signature.getInstance(algorithm);
+        if (mode == MODE_SIGN) {
+            signature.initSign((PrivateKey) key);
+        } else {
+            signature.initVerify((PublicKey) key);
+        }
+        putInstance(id, signature);
+        return signature;
+    }
+
+    @Nullable
+    private static Object getInstance(Id id) {
+        if (!sEnabled) {
+            return null;
+        }
+        final Object cached = sInstances.get().get().get(id);
+        if (cached == null) {
+            sMisses.incrementAndGet(id.mType);
+        } else {
+            sHits.incrementAndGet(id.mType);
+        }
+        return cached;
+    }
+
+    private static void putInstance(Id id, Object instance) {
+        if (sEnabled) {
+            sInstances.get().get().put(id, instance);
+        }
+    }
+
+    private static void removeInstance(Object instance) {
+        final LruCache<Id, Object> cache = sInstances.get().get();
+        for (Map.Entry<Id, Object> entry : cache.snapshot().entrySet()) {
+            if (entry.getValue() == instance) {
+                cache.remove(entry.getKey());
+            }
+        }
+    }
+
+    @Nullable
+    private static Key getKey(Id id) {
+        if (!sEnabled) {
+            return null;
+        }
+        final Key cached = sKeys.get(id);
+        if (cached == null) {
+            sMisses.incrementAndGet(TYPE_KEY);
+        } else {
+            sHits.incrementAndGet(TYPE_KEY);
+        }
+        return cached;
+    }
+
+    private static void putKey(Id id, Key key) {
+        if (sEnabled) {
+            sKeys.put(id, key);
+        }
+    }
+
+    interface SecretKeyLoader {
+        Key load(byte[] encoded) throws
+                NoSuchAlgorithmException,
+                InvalidKeyException,
+                InvalidKeySpecException;
+    }
+
+    interface PBEKeyLoader {
+        byte[] load() throws
+                NoSuchAlgorithmException,
+                InvalidKeySpecException;
+    }
+
+    private static class Instances {
+        private final LruCache<Id, Object> mCache = new LruCache<>(MAX_INSTANCES_PER_THREAD);
+
+        @NonNull
+        LruCache<Id, Object> get() {
+            return mCache;
+        }
+    }
+
+    private static class Id {
+        private final int mType;
+        private final String mAlgorithm;
+        private final int mMode;
+        private final Key mKey;
+        // 密钥编码的摘要或 IV，不保存密钥原文
+        private final byte[] mData;
+        private final int mHashCode;
+
+        Id(int type, String algorithm, int mode, @Nullable Key key, @Nullable byte[] data) {
+            mType = type;
+            mAlgorithm = algorithm;
+            mMode = mode;
+            mKey = key;
+            mData = data == null ? null : data.clone();
+            mHashCode = (((type * 31 + algorithm.hashCode()) * 31 + mode) * 31
+                    + (key == null ? 0 : key.hashCode())) * 31 + Arrays.hashCode(data);
+        }
+
+        static Id ofEncoded(String algorithm, int mode, byte[] encoded)
+                throws NoSuchAlgorithmException {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(encoded);
+            return new Id(TYPE_KEY, algorithm, mode, null, digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Id)) return false;
+            final Id other = (Id) o;
+            return mHashCode == other.mHashCode
+                    && mType == other.mType
+                    && mMode == other.mMode
+                    && mAlgorithm.equals(other.mAlgorithm)
+                    && (mKey == null ? other.mKey == null : mKey.equals(other.mKey))
+                    && Arrays.equals(mData, other.mData);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
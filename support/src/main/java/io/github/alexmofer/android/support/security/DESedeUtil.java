@@ -17,6 +17,11 @@ package io.github.alexmofer.android.support.security;
 
 import android.annotation.SuppressLint;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -24,6 +29,8 @@ import java.security.spec.InvalidKeySpecException;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKeyFactory;
@@ -64,16 +71,9 @@ public class DESedeUtil {
             InvalidKeySpecException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final Key secureKey;
-        if (size == 128) {
-            secureKey = new SecretKeySpec(key, ALGORITHM);// 168 长度的Key部分支持
-        } else {
-            secureKey = SecretKeyFactory.getInstance(ALGORITHM)
-                    .generateSecret(new DESedeKeySpec(key));// 128 长度的Key不支持
-        }
-        @SuppressLint("GetInstance") final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, secureKey);
-        return cipher.doFinal(clear);
+        final Cipher cipher = CryptoCache.obtainCipher(TRANSFORMATION, Cipher.ENCRYPT_MODE,
+                getKey(key, size));
+        return CryptoCache.doFinal(cipher, clear);
     }
 
     /**
@@ -120,16 +120,9 @@ public class DESedeUtil {
             InvalidKeySpecException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final Key secureKey;
-        if (size == 128) {
-            secureKey = new SecretKeySpec(key, ALGORITHM);// 168 长度的Key部分支持
-        } else {
-            secureKey = SecretKeyFactory.getInstance(ALGORITHM)
-                    .generateSecret(new DESedeKeySpec(key));// 128 长度的Key不支持
-        }
-        @SuppressLint("GetInstance") final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, secureKey);
-        return cipher.doFinal(encrypted);
+        final Cipher cipher = CryptoCache.obtainCipher(TRANSFORMATION, Cipher.DECRYPT_MODE,
+                getKey(key, size));
+        return CryptoCache.doFinal(cipher, encrypted);
     }
 
     /**
@@ -155,6 +148,214 @@ public class DESedeUtil {
         return decrypt(key, SIZE, encrypted);
     }
 
+    /**
+     * 获取已初始化的 Cipher
+     *
+     * @param key    密钥字节
+     * @param size   密钥长度
+     * @param opmode {@link Cipher#ENCRYPT_MODE} 或 {@link Cipher#DECRYPT_MODE}
+     * @return Cipher
+     * @throws InvalidKeyException      异常
+     * @throws InvalidKeySpecException  异常
+     * @throws NoSuchAlgorithmException 异常
+     * @throws NoSuchPaddingException   异常
+     */
+    public static Cipher getCipher(byte[] key, int size, int opmode) throws
+            NoSuchAlgorithmException,
+            NoSuchPaddingException,
+            InvalidKeyException,
+            InvalidKeySpecException {
+        @SuppressLint("GetInstance") final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(opmode, getKey(key, size));
+        return cipher;
+    }
+
+    /**
+     * 加密，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param key    密钥字节
+     * @param size   密钥长度
+     * @param input  明文输入流
+     * @param output 密文输出流
+     * @return 密文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long encrypt(byte[] key, int size, InputStream input, OutputStream output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, size, Cipher.ENCRYPT_MODE), input, output);
+    }
+
+    /**
+     * 加密，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param key    密钥字节
+     * @param input  明文输入流
+     * @param output 密文输出流
+     * @return 密文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long encrypt(byte[] key, InputStream input, OutputStream output) throws
+            IOException,
+            GeneralSecurityException {
+        return encrypt(key, SIZE, input, output);
+    }
+
+    /**
+     * 解密，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param key    密钥字节
+     * @param size   密钥长度
+     * @param input  密文输入流
+     * @param output 明文输出流
+     * @return 明文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long decrypt(byte[] key, int size, InputStream input, OutputStream output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, size, Cipher.DECRYPT_MODE), input, output);
+    }
+
+    /**
+     * 解密，读取至输入流末尾，不关闭输入输出流
+     *
+     * @param key    密钥字节
+     * @param input  密文输入流
+     * @param output 明文输出流
+     * @return 明文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long decrypt(byte[] key, InputStream input, OutputStream output) throws
+            IOException,
+            GeneralSecurityException {
+        return decrypt(key, SIZE, input, output);
+    }
+
+    /**
+     * 加密，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param key    密钥字节
+     * @param size   密钥长度
+     * @param input  明文通道
+     * @param output 密文通道
+     * @return 密文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long encrypt(byte[] key, int size, FileChannel input, FileChannel output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, size, Cipher.ENCRYPT_MODE), input, output);
+    }
+
+    /**
+     * 加密，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param key    密钥字节
+     * @param input  明文通道
+     * @param output 密文通道
+     * @return 密文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long encrypt(byte[] key, FileChannel input, FileChannel output) throws
+            IOException,
+            GeneralSecurityException {
+        return encrypt(key, SIZE, input, output);
+    }
+
+    /**
+     * 解密，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param key    密钥字节
+     * @param size   密钥长度
+     * @param input  密文通道
+     * @param output 明文通道
+     * @return 明文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long decrypt(byte[] key, int size, FileChannel input, FileChannel output) throws
+            IOException,
+            GeneralSecurityException {
+        return CipherUtils.transform(getCipher(key, size, Cipher.DECRYPT_MODE), input, output);
+    }
+
+    /**
+     * 解密，从输入通道当前位置读取至末尾，写入输出通道当前位置
+     *
+     * @param key    密钥字节
+     * @param input  密文通道
+     * @param output 明文通道
+     * @return 明文字节数
+     * @throws IOException              异常
+     * @throws GeneralSecurityException 异常
+     */
+    public static long decrypt(byte[] key, FileChannel input, FileChannel output) throws
+            IOException,
+            GeneralSecurityException {
+        return decrypt(key, SIZE, input, output);
+    }
+
+    /**
+     * 创建加密输出流，写入明文，关闭时写出末尾数据块
+     *
+     * @param key    密钥字节
+     * @param size   密钥长度
+     * @param output 密文输出流
+     * @return 加密输出流
+     * @throws GeneralSecurityException 异常
+     */
+    public static OutputStream newEncryptOutputStream(byte[] key, int size, OutputStream output)
+            throws GeneralSecurityException {
+        return new CipherOutputStream(output, getCipher(key, size, Cipher.ENCRYPT_MODE));
+    }
+
+    /**
+     * 创建加密输出流，写入明文，关闭时写出末尾数据块
+     *
+     * @param key    密钥字节
+     * @param output 密文输出流
+     * @return 加密输出流
+     * @throws GeneralSecurityException 异常
+     */
+    public static OutputStream newEncryptOutputStream(byte[] key, OutputStream output)
+            throws GeneralSecurityException {
+        return newEncryptOutputStream(key, SIZE, output);
+    }
+
+    /**
+     * 创建解密输入流，读取明文
+     *
+     * @param key   密钥字节
+     * @param size  密钥长度
+     * @param input 密文输入流
+     * @return 解密输入流
+     * @throws GeneralSecurityException 异常
+     */
+    public static InputStream newDecryptInputStream(byte[] key, int size, InputStream input)
+            throws GeneralSecurityException {
+        return new CipherInputStream(input, getCipher(key, size, Cipher.DECRYPT_MODE));
+    }
+
+    /**
+     * 创建解密输入流，读取明文
+     *
+     * @param key   密钥字节
+     * @param input 密文输入流
+     * @return 解密输入流
+     * @throws GeneralSecurityException 异常
+     */
+    public static InputStream newDecryptInputStream(byte[] key, InputStream input)
+            throws GeneralSecurityException {
+        return newDecryptInputStream(key, SIZE, input);
+    }
+
     /**
      * 生成密钥
      *
@@ -223,4 +424,16 @@ public class DESedeUtil {
     public static byte[] getPBEKey(char[] password, byte[] salt) throws Exception {
         return getPBEKey(password, salt, SIZE);
     }
+
+    private static Key getKey(byte[] key, int size) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException,
+            InvalidKeySpecException {
+        if (size == 128) {
+            return new SecretKeySpec(key, ALGORITHM);// 168 长度的Key部分支持
+        }
+        return CryptoCache.getSecretKey(ALGORITHM, key, encoded ->
+                SecretKeyFactory.getInstance(ALGORITHM)
+                        .generateSecret(new DESedeKeySpec(encoded)));// 128 长度的Key不支持
+    }
 }
@@ -4,11 +4,22 @@ import androidx.annotation.NonNull;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import io.github.alexmofer.android.support.utils.ByteUtils;
 
 /**
  * Computes a hash using the same algorithm that the Dropbox API uses for the
@@ -67,9 +78,14 @@ import java.security.NoSuchAlgorithmException;
  */
 public final class DropboxContentHasher extends MessageDigest implements Cloneable {
     public static final int BLOCK_SIZE = 4 * 1024 * 1024;
+    private static final int BLOCK_HASH_LENGTH = 32;
+    private static final int STATE_VERSION = 1;
     private MessageDigest overallHasher;
     private MessageDigest blockHasher;
     private int blockPos = 0;
+    // SHA-256 内部状态无法导出，保留已完成数据块的摘要以便导出计算状态
+    private byte[] blockHashes = new byte[0];
+    private int blockCount = 0;
 
     public DropboxContentHasher() throws NoSuchAlgorithmException {
         this(MessageDigest.getInstance("SHA-256"), MessageDigest.getInstance("SHA-256"), 0);
@@ -91,18 +107,120 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
      */
     public static String getHash(File file) throws Exception {
         final DropboxContentHasher hasher = new DropboxContentHasher();
-        final byte[] buffer = new byte[1024];
         //noinspection IOStreamConstructor
-        try (final InputStream input = new FileInputStream(file)) {
-            while (true) {
-                final int len = input.read(buffer);
-                if (len < 0) break;  // EOF
-                hasher.update(buffer, 0, len);
-            }
+        try (final FileInputStream input = new FileInputStream(file)) {
+            MessageDigestUtils.update(hasher, input.getChannel());
+        }
+        return hasher.digestToString();
+    }
+
+    /**
+     * 获取文件 Hash，各数据块并行计算
+     *
+     * @param file        文件
+     * @param parallelism 并行数
+     * @return 文件 Hash
+     * @throws Exception 错误信息
+     */
+    public static String getHash(File file, int parallelism) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            return getHash(file, executor, parallelism);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 获取文件 Hash，各数据块并行计算
+     *
+     * @param file        文件
+     * @param executor    执行器
+     * @param parallelism 并行数，即同时计算的数据块上限
+     * @return 文件 Hash
+     * @throws Exception 错误信息
+     */
+    public static String getHash(File file, @NonNull Executor executor,
+                                 int parallelism) throws Exception {
+        final DropboxContentHasher hasher = new DropboxContentHasher();
+        //noinspection IOStreamConstructor
+        try (final FileInputStream input = new FileInputStream(file);
+             final FileChannel channel = input.getChannel()) {
+            hasher.update(channel, executor, parallelism);
         }
         return hasher.digestToString();
     }
 
+    /**
+     * 并行更新，从通道当前位置读取至末尾，完成后通道位置移至末尾
+     * 各完整数据块在执行器上并行计算，并按顺序合入，结果与顺序更新一致。
+     * 出错后摘要状态不可用，需要 {@link #reset()}。
+     *
+     * @param channel     文件通道
+     * @param executor    执行器
+     * @param parallelism 并行数，即同时计算的数据块上限
+     * @throws IOException 读取错误
+     */
+    public void update(@NonNull FileChannel channel, @NonNull Executor executor,
+                       int parallelism) throws IOException {
+        final long start = channel.position();
+        final long end = channel.size();
+        if (start >= end) {
+            return;
+        }
+        final long head = Math.min(end - start,
+                blockPos == 0 || blockPos == BLOCK_SIZE ? 0 : BLOCK_SIZE - blockPos);
+        if (head > 0) {
+            update(channel.map(FileChannel.MapMode.READ_ONLY, start, head));
+        }
+        final long blocksStart = start + head;
+        final long blocks = (end - blocksStart) / BLOCK_SIZE;
+        updateBlocks(index -> channel.map(FileChannel.MapMode.READ_ONLY,
+                blocksStart + index * BLOCK_SIZE, BLOCK_SIZE), blocks, executor, parallelism);
+        final long tailStart = blocksStart + blocks * BLOCK_SIZE;
+        if (tailStart < end) {
+            update(channel.map(FileChannel.MapMode.READ_ONLY, tailStart, end - tailStart));
+        }
+        channel.position(end);
+    }
+
+    /**
+     * 并行更新，读取缓冲区剩余数据，完成后缓冲区位置移至上限
+     * 各完整数据块在执行器上并行计算，并按顺序合入，结果与顺序更新一致。
+     * 出错后摘要状态不可用，需要 {@link #reset()}。
+     *
+     * @param input       缓冲区
+     * @param executor    执行器
+     * @param parallelism 并行数，即同时计算的数据块上限
+     * @throws IOException 计算错误
+     */
+    public void update(@NonNull ByteBuffer input, @NonNull Executor executor,
+                       int parallelism) throws IOException {
+        final int start = input.position();
+        final int end = input.limit();
+        if (start >= end) {
+            return;
+        }
+        final int head = Math.min(end - start,
+                blockPos == 0 || blockPos == BLOCK_SIZE ? 0 : BLOCK_SIZE - blockPos);
+        if (head > 0) {
+            input.limit(start + head);
+            update(input);
+            input.limit(end);
+        }
+        final int blocksStart = start + head;
+        final int blocks = (end - blocksStart) / BLOCK_SIZE;
+        updateBlocks(index -> {
+            final ByteBuffer block = input.duplicate();
+            final int position = blocksStart + (int) index * BLOCK_SIZE;
+            block.limit(position + BLOCK_SIZE);
+            block.position(position);
+            return block;
+        }, blocks, executor, parallelism);
+        input.position(blocksStart + blocks * BLOCK_SIZE);
+        update(input);
+    }
+
     @Override
     protected void engineUpdate(byte input) {
         finishBlockIfFull();
@@ -152,6 +270,7 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
     @Override
     protected byte[] engineDigest() {
         finishBlockIfNonEmpty();
+        clearBlockHashes();
         return overallHasher.digest();
     }
 
@@ -159,6 +278,7 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
     protected int engineDigest(byte[] buf, int offset, int len)
             throws DigestException {
         finishBlockIfNonEmpty();
+        clearBlockHashes();
         return overallHasher.digest(buf, offset, len);
     }
 
@@ -167,6 +287,7 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
         this.overallHasher.reset();
         this.blockHasher.reset();
         this.blockPos = 0;
+        clearBlockHashes();
     }
 
     @NonNull
@@ -176,6 +297,7 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
         DropboxContentHasher clone = (DropboxContentHasher) super.clone();
         clone.overallHasher = (MessageDigest) clone.overallHasher.clone();
         clone.blockHasher = (MessageDigest) clone.blockHasher.clone();
+        clone.blockHashes = clone.blockHashes.clone();
         return clone;
     }
 
@@ -184,14 +306,83 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
      * @return 字符串摘要
      */
     public String digestToString() {
-        return MessageDigestUtils.toHexString(digest(), 0);
+        return ByteUtils.toHexString(digest(), false);
+    }
+
+    /**
+     * 获取已计算的数据长度
+     *
+     * @return 数据长度
+     */
+    public long getLength() {
+        return (long) blockCount * BLOCK_SIZE + blockPos;
+    }
+
+    /**
+     * 导出计算状态，可持久化后通过 {@link #importState(byte[])} 恢复并继续计算
+     * 状态仅包含已完整计算的数据块（每 {@link #BLOCK_SIZE} 字节占用 32 字节），
+     * 末尾不足一块的数据在恢复后需要重新计算。
+     *
+     * @return 计算状态
+     */
+    public byte[] exportState() {
+        finishBlockIfFull();
+        final int length = blockCount * BLOCK_HASH_LENGTH;
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + length);
+        buffer.putInt(STATE_VERSION);
+        buffer.putInt(blockCount);
+        buffer.put(blockHashes, 0, length);
+        return buffer.array();
+    }
+
+    /**
+     * 导入计算状态，此后应从返回的位置继续更新数据
+     *
+     * @param state 由 {@link #exportState()} 导出的计算状态
+     * @return 已计算的数据长度，为 {@link #BLOCK_SIZE} 的整数倍
+     */
+    public long importState(byte[] state) {
+        if (state == null || state.length < 8) {
+            throw new IllegalArgumentException("Invalid state");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(state);
+        if (buffer.getInt() != STATE_VERSION) {
+            throw new IllegalArgumentException("Unsupported state version");
+        }
+        final int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != (long) count * BLOCK_HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid state");
+        }
+        engineReset();
+        final byte[] hash = new byte[BLOCK_HASH_LENGTH];
+        for (int i = 0; i < count; i++) {
+            buffer.get(hash);
+            appendBlockHash(hash);
+        }
+        return (long) count * BLOCK_SIZE;
     }
 
     private void finishBlock() {
-        overallHasher.update(blockHasher.digest());
+        appendBlockHash(blockHasher.digest());
         blockPos = 0;
     }
 
+    private void clearBlockHashes() {
+        blockHashes = new byte[0];
+        blockCount = 0;
+    }
+
+    private void appendBlockHash(byte[] hash) {
+        overallHasher.update(hash);
+        final int offset = blockCount * BLOCK_HASH_LENGTH;
+        if (blockHashes.length < offset + BLOCK_HASH_LENGTH) {
+            blockHashes = Arrays.copyOf(blockHashes,
+                    Math.max(offset + BLOCK_HASH_LENGTH, blockHashes.length * 2));
+        }
+        System.arraycopy(hash, 0, blockHashes, offset, BLOCK_HASH_LENGTH);
+        blockCount++;
+    }
+
     private void finishBlockIfFull() {
         if (blockPos == BLOCK_SIZE) {
             finishBlock();
@@ -203,4 +394,50 @@ public final class DropboxContentHasher extends MessageDigest implements Cloneab
             finishBlock();
         }
     }
+
+    private void updateBlocks(BlockSource source, long blocks,
+                              Executor executor, int parallelism) throws IOException {
+        if (blocks <= 0) {
+            return;
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1");
+        }
+        finishBlockIfFull();
+        final ArrayDeque<FutureTask<byte[]>> pending = new ArrayDeque<>(parallelism);
+        long next = 0;
+        try {
+            while (next < blocks || !pending.isEmpty()) {
+                while (next < blocks && pending.size() < parallelism) {
+                    final ByteBuffer block = source.get(next++);
+                    final FutureTask<byte[]> task = new FutureTask<>(() -> {
+                        final MessageDigest hasher = MessageDigest.getInstance("SHA-256");
+                        hasher.update(block);
+                        return hasher.digest();
+                    });
+                    executor.execute(task);
+                    pending.add(task);
+                }
+                //noinspection DataFlowIssue
+                appendBlockHash(pending.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (FutureTask<byte[]> task : pending) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private interface BlockSource {
+        ByteBuffer get(long index) throws IOException;
+    }
 }
@@ -80,7 +80,7 @@ public class KeyUtil {
     }
 
     /**
-     * PBE口令密钥
+     * PBE口令密钥，结果由 {@link CryptoCache} 缓存
      *
      * @param algorithm      SecretKeyFactory算法
      * @param password       口令
@@ -95,10 +95,12 @@ public class KeyUtil {
                                    int iterationCount, int size) throws
             NoSuchAlgorithmException,
             InvalidKeySpecException {
-        SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance(algorithm);
-        PBEKeySpec keySpec = new PBEKeySpec(password, salt, iterationCount, size);
-        SecretKey secretKey = secretKeyFactory.generateSecret(keySpec);
-        return secretKey.getEncoded();
+        return CryptoCache.getPBEKey(algorithm, password, salt, iterationCount, size, () -> {
+            SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance(algorithm);
+            PBEKeySpec keySpec = new PBEKeySpec(password, salt, iterationCount, size);
+            SecretKey secretKey = secretKeyFactory.generateSecret(keySpec);
+            return secretKey.getEncoded();
+        });
     }
 
     /**
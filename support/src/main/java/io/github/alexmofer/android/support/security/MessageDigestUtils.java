@@ -19,20 +19,24 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.net.Uri;
 import android.os.Build;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+import io.github.alexmofer.android.support.utils.ByteUtils;
+
 /**
  * 信息摘要工具类
  * Created by Mofer on 2016/4/28.
@@ -40,6 +44,9 @@ import java.security.NoSuchAlgorithmException;
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class MessageDigestUtils {
 
+    private static final long MAP_WINDOW_SIZE = 32 * 1024 * 1024;
+    private static final int DIRECT_BUFFER_SIZE = 256 * 1024;
+
     private MessageDigestUtils() {
         //no instance
     }
@@ -74,19 +81,7 @@ public class MessageDigestUtils {
      */
     @Nullable
     public static String toHexString(@Nullable byte[] bytes, int minLength) {
-        if (bytes == null) {
-            return null;
-        }
-        final String str = new BigInteger(1, bytes).toString(16);
-        final StringBuilder builder = new StringBuilder();
-        if (str.length() < minLength) {
-            final int number = minLength - str.length();
-            for (int i = 0; i < number; i++) {
-                builder.append("0");
-            }
-        }
-        builder.append(str);
-        return builder.toString();
+        return ByteUtils.toHexString(bytes, minLength);
     }
 
     /**
@@ -789,24 +784,184 @@ public class MessageDigestUtils {
     }
 
     /**
-     * 获取文件 MD5
+     * 更新信息摘要，从通道当前位置读取至末尾
+     * 普通文件按窗口内存映射后直接传入，无法映射的通道（如管道）使用直接缓冲区读取，均不经过堆内存复制。
+     *
+     * @param md      MessageDigest
+     * @param channel 文件通道
+     * @throws IOException 读取错误
+     */
+    public static void update(@NonNull MessageDigest md, @NonNull FileChannel channel)
+            throws IOException {
+        long position;
+        long size;
+        try {
+            position = channel.position();
+            size = channel.size();
+        } catch (IOException e) {
+            // 不支持定位的通道
+            position = 0;
+            size = 0;
+        }
+        boolean mapped = false;
+        while (position < size) {
+            final long length = Math.min(MAP_WINDOW_SIZE, size - position);
+            final ByteBuffer window;
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            } catch (IOException e) {
+                if (mapped) {
+                    throw e;
+                }
+                // 不支持映射的通道
+                break;
+            }
+            mapped = true;
+            md.update(window);
+            position += length;
+        }
+        if (mapped) {
+            channel.position(position);
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            md.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 获取信息摘要
+     *
+     * @param input     数据源，从当前位置读取至末尾
+     * @param algorithm 算法
+     * @return 信息摘要
+     */
+    @Nullable
+    public static byte[] getMessageDigest(@Nullable FileChannel input, @NonNull String algorithm) {
+        if (input == null) {
+            return null;
+        }
+        try {
+            final MessageDigest md = MessageDigest.getInstance(algorithm);
+            md.reset();
+            update(md, input);
+            return md.digest();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取信息摘要
+     *
+     * @param input     数据源，从当前位置读取至末尾
+     * @param algorithm 算法
+     * @param minLength 16进制字节最小长度
+     * @return 信息摘要
+     */
+    @Nullable
+    public static String getMessageDigest(@Nullable FileChannel input, @NonNull String algorithm,
+                                          int minLength) {
+        return toHexString(getMessageDigest(input, algorithm), minLength);
+    }
+
+    /**
+     * 获取文件信息摘要
      *
      * @param file      文件
-     * @param minLength 最少长度，不足在前面补0
-     * @return MD5
+     * @param algorithm 算法
+     * @return 信息摘要
      */
     @Nullable
-    public static String getMD5(@Nullable File file, int minLength) {
+    public static byte[] getMessageDigest(@Nullable File file, @NonNull String algorithm) {
         if (file == null) {
             return null;
         }
         try (final FileInputStream input = new FileInputStream(file)) {
-            return getMD5String(input, minLength);
+            return getMessageDigest(input.getChannel(), algorithm);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取文件信息摘要
+     *
+     * @param file      文件
+     * @param algorithm 算法
+     * @param minLength 16进制字节最小长度
+     * @return 信息摘要
+     */
+    @Nullable
+    public static String getMessageDigest(@Nullable File file, @NonNull String algorithm,
+                                          int minLength) {
+        return toHexString(getMessageDigest(file, algorithm), minLength);
+    }
+
+    /**
+     * 获取文件信息摘要
+     *
+     * @param context   Context
+     * @param uri       Uri
+     * @param algorithm 算法
+     * @return 信息摘要
+     */
+    @Nullable
+    public static byte[] getMessageDigest(@NonNull Context context, @Nullable Uri uri,
+                                          @NonNull String algorithm) {
+        if (uri == null) {
+            return null;
+        }
+        ParcelFileDescriptor descriptor = null;
+        try {
+            descriptor = context.getContentResolver().openFileDescriptor(uri, "r");
+        } catch (Exception e) {
+            // 非完整文件（如资源、压缩的 Asset）无法获取文件描述符，改用输入流
+        }
+        if (descriptor == null) {
+            try (final InputStream input = context.getContentResolver().openInputStream(uri)) {
+                return getMessageDigest(input, algorithm);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        try (final FileInputStream input = new ParcelFileDescriptor.AutoCloseInputStream(descriptor)) {
+            return getMessageDigest(input.getChannel(), algorithm);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * 获取文件信息摘要
+     *
+     * @param context   Context
+     * @param uri       Uri
+     * @param algorithm 算法
+     * @param minLength 16进制字节最小长度
+     * @return 信息摘要
+     */
+    @Nullable
+    public static String getMessageDigest(@NonNull Context context, @Nullable Uri uri,
+                                          @NonNull String algorithm, int minLength) {
+        return toHexString(getMessageDigest(context, uri, algorithm), minLength);
+    }
+
+    /**
+     * 获取文件 MD5
+     *
+     * @param file      文件
+     * @param minLength 最少长度，不足在前面补0
+     * @return MD5
+     */
+    @Nullable
+    public static String getMD5(@Nullable File file, int minLength) {
+        return getMessageDigest(file, "MD5", minLength);
+    }
+
     /**
      * 获取文件 MD5
      *
@@ -828,17 +983,7 @@ public class MessageDigestUtils {
      */
     @Nullable
     public static String getMD5(@NonNull Context context, @Nullable Uri uri, int minLength) {
-        if (uri == null) {
-            return null;
-        }
-        try (final InputStream input = context.getContentResolver().openInputStream(uri)) {
-            if (input == null) {
-                return null;
-            }
-            return getMD5String(input, minLength);
-        } catch (Exception e) {
-            return null;
-        }
+        return getMessageDigest(context, uri, "MD5", minLength);
     }
 
     /**
@@ -852,4 +997,4 @@ public class MessageDigestUtils {
     public static String getMD5(@NonNull Context context, @Nullable Uri uri) {
         return getMD5(context, uri, 0);
     }
-}
\ No newline at end of file
+}
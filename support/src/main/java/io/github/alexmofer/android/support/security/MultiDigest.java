@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.security;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Checksum;
+
+import io.github.alexmofer.android.support.utils.CRCUtils;
+
+/**
+ * 多重摘要
+ * 数据源只读取一次，每段数据依次交给所有信息摘要与校验器，设置执行器后各通道并行计算。
+ * <pre>
+ * final MultiDigest.Result result = new MultiDigest("MD5", "SHA-1", "SHA-256")
+ *         .addDigest("QuickXorHash", new QuickXorHasher())
+ *         .addCRC()
+ *         .digest(file);
+ * final String md5 = result.getDigestString("MD5", 32);
+ * final long crc = result.getChecksum(MultiDigest.NAME_CRC);
+ * </pre>
+ * Created by Alex on 2026/10/18.
+ */
+public final class MultiDigest {
+
+    public static final String NAME_CRC = "CRC";
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private final List<String> mDigestNames = new ArrayList<>();
+    private final List<MessageDigest> mDigests = new ArrayList<>();
+    private final List<String> mChecksumNames = new ArrayList<>();
+    private final List<Checksum> mChecksums = new ArrayList<>();
+    private Executor mExecutor;
+    private byte[] mBuffer;
+
+    /**
+     * 创建多重摘要
+     *
+     * @param algorithms 信息摘要算法，以算法名作为结果名称
+     * @throws NoSuchAlgorithmException 算法不支持
+     */
+    public MultiDigest(@NonNull String... algorithms) throws NoSuchAlgorithmException {
+        for (String algorithm : algorithms) {
+            addDigest(algorithm);
+        }
+    }
+
+    /**
+     * 添加信息摘要，以算法名作为结果名称
+     *
+     * @param algorithm 算法
+     * @return 多重摘要
+     * @throws NoSuchAlgorithmException 算法不支持
+     */
+    @NonNull
+    public MultiDigest addDigest(@NonNull String algorithm) throws NoSuchAlgorithmException {
+        return addDigest(algorithm, MessageDigest.getInstance(algorithm));
+    }
+
+    /**
+     * 添加信息摘要
+     *
+     * @param name   结果名称
+     * @param digest 信息摘要，如 {@link QuickXorHasher}、{@link DropboxContentHasher}
+     * @return 多重摘要
+     */
+    @NonNull
+    public MultiDigest addDigest(@NonNull String name, @NonNull MessageDigest digest) {
+        if (mDigestNames.contains(name)) {
+            throw new IllegalArgumentException("Duplicate digest name: " + name);
+        }
+        mDigestNames.add(name);
+        mDigests.add(digest);
+        return this;
+    }
+
+    /**
+     * 添加校验器
+     *
+     * @param name     结果名称
+     * @param checksum 校验器
+     * @return 多重摘要
+     */
+    @NonNull
+    public MultiDigest addChecksum(@NonNull String name, @NonNull Checksum checksum) {
+        if (mChecksumNames.contains(name)) {
+            throw new IllegalArgumentException("Duplicate checksum name: " + name);
+        }
+        mChecksumNames.add(name);
+        mChecksums.add(checksum);
+        return this;
+    }
+
+    /**
+     * 添加 {@link CRCUtils} 使用的校验器，结果名称为 {@link #NAME_CRC}
+     *
+     * @return 多重摘要
+     */
+    @NonNull
+    public MultiDigest addCRC() {
+        return addChecksum(NAME_CRC, CRCUtils.newChecksum());
+    }
+
+    /**
+     * 设置执行器，设置后各信息摘要与校验器在执行器上并行计算，为空时在调用线程依次计算
+     *
+     * @param executor 执行器
+     * @return 多重摘要
+     */
+    @NonNull
+    public MultiDigest setExecutor(@Nullable Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * 更新
+     *
+     * @param input  数据
+     * @param offset 偏移
+     * @param len    长度
+     */
+    public void update(@NonNull byte[] input, int offset, int len) {
+        final int lanes = mDigests.size() + mChecksums.size();
+        if (lanes == 0 || len <= 0) {
+            return;
+        }
+        final Executor executor = mExecutor;
+        if (executor == null || lanes == 1) {
+            for (int i = 0; i < lanes; i++) {
+                updateLane(i, input, offset, len);
+            }
+            return;
+        }
+        final List<FutureTask<Void>> tasks = new ArrayList<>(lanes - 1);
+        for (int i = 1; i < lanes; i++) {
+            final int lane = i;
+            final FutureTask<Void> task = new FutureTask<>(
+                    () -> updateLane(lane, input, offset, len), null);
+            tasks.add(task);
+            executor.execute(task);
+        }
+        updateLane(0, input, offset, len);
+        // 数据可能被调用方复用，必须等待全部通道完成
+        boolean interrupted = false;
+        RuntimeException exception = null;
+        for (FutureTask<Void> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (exception == null) {
+                        final Throwable cause = e.getCause();
+                        exception = cause instanceof RuntimeException ?
+                                (RuntimeException) cause : new RuntimeException(cause);
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 更新
+     *
+     * @param input 数据
+     */
+    public void update(@NonNull byte[] input) {
+        update(input, 0, input.length);
+    }
+
+    /**
+     * 更新，读取至输入流末尾，不关闭输入流
+     *
+     * @param input 输入流
+     * @throws IOException 读取错误
+     */
+    public void update(@NonNull InputStream input) throws IOException {
+        if (mBuffer == null) {
+            mBuffer = new byte[BUFFER_SIZE];
+        }
+        final byte[] buffer = mBuffer;
+        while (true) {
+            // 尽量读满缓冲区，减少分发次数
+            int count = 0;
+            int read;
+            while (count < buffer.length
+                    && (read = input.read(buffer, count, buffer.length - count)) != -1) {
+                count += read;
+            }
+            if (count == 0) {
+                break;
+            }
+            update(buffer, 0, count);
+            if (count < buffer.length) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 更新
+     *
+     * @param file 文件
+     * @throws IOException 读取错误
+     */
+    public void update(@NonNull File file) throws IOException {
+        //noinspection IOStreamConstructor
+        try (final InputStream input = new FileInputStream(file)) {
+            update(input);
+        }
+    }
+
+    /**
+     * 更新
+     *
+     * @param context Context
+     * @param uri     Uri
+     * @throws IOException 读取错误
+     */
+    public void update(@NonNull Context context, @NonNull Uri uri) throws IOException {
+        try (final InputStream input = context.getContentResolver().openInputStream(uri)) {
+            if (input == null) {
+                throw new FileNotFoundException("Cannot open: " + uri);
+            }
+            update(input);
+        }
+    }
+
+    /**
+     * 完成计算并重置
+     *
+     * @return 结果
+     */
+    @NonNull
+    public Result digest() {
+        final Map<String, byte[]> digests = new LinkedHashMap<>();
+        for (int i = 0; i < mDigests.size(); i++) {
+            digests.put(mDigestNames.get(i), mDigests.get(i).digest());
+        }
+        final Map<String, Long> checksums = new LinkedHashMap<>();
+        for (int i = 0; i < mChecksums.size(); i++) {
+            final Checksum checksum = mChecksums.get(i);
+            checksums.put(mChecksumNames.get(i), checksum.getValue());
+            checksum.reset();
+        }
+        return new Result(digests, checksums);
+    }
+
+    /**
+     * 读取文件并完成计算
+     *
+     * @param file 文件
+     * @return 结果
+     * @throws IOException 读取错误
+     */
+    @NonNull
+    public Result digest(@NonNull File file) throws IOException {
+        try {
+            update(file);
+        } catch (IOException e) {
+            reset();
+            throw e;
+        }
+        return digest();
+    }
+
+    /**
+     * 读取文件并完成计算
+     *
+     * @param context Context
+     * @param uri     Uri
+     * @return 结果
+     * @throws IOException 读取错误
+     */
+    @NonNull
+    public Result digest(@NonNull Context context, @NonNull Uri uri) throws IOException {
+        try {
+            update(context, uri);
+        } catch (IOException e) {
+            reset();
+            throw e;
+        }
+        return digest();
+    }
+
+    /**
+     * 重置
+     */
+    public void reset() {
+        for (MessageDigest digest : mDigests) {
+            digest.reset();
+        }
+        for (Checksum checksum : mChecksums) {
+            checksum.reset();
+        }
+    }
+
+    private void updateLane(int lane, byte[] input, int offset, int len) {
+        final int digests = mDigests.size();
+        if (lane < digests) {
+            mDigests.get(lane).update(input, offset, len);
+        } else {
+            mChecksums.get(lane - digests).update(input, offset, len);
+        }
+    }
+
+    /**
+     * 结果
+     */
+    public static final class Result {
+        private final Map<String, byte[]> mDigests;
+        private final Map<String, Long> mChecksums;
+
+        private Result(Map<String, byte[]> digests, Map<String, Long> checksums) {
+            mDigests = Collections.unmodifiableMap(digests);
+            mChecksums = Collections.unmodifiableMap(checksums);
+        }
+
+        /**
+         * 获取全部信息摘要名称
+         *
+         * @return 信息摘要名称
+         */
+        @NonNull
+        public Set<String> getDigestNames() {
+            return mDigests.keySet();
+        }
+
+        /**
+         * 获取全部校验器名称
+         *
+         * @return 校验器名称
+         */
+        @NonNull
+        public Set<String> getChecksumNames() {
+            return mChecksums.keySet();
+        }
+
+        /**
+         * 获取信息摘要
+         *
+         * @param name 名称
+         * @return 信息摘要
+         */
+        @Nullable
+        public byte[] getDigest(@NonNull String name) {
+            final byte[] digest = mDigests.get(name);
+            return digest == null ? null : digest.clone();
+        }
+
+        /**
+         * 获取信息摘要
+         *
+         * @param name      名称
+         * @param minLength 16进制字符串最小长度
+         * @return 信息摘要
+         */
+        @Nullable
+        public String getDigestString(@NonNull String name, int minLength) {
+            return MessageDigestUtils.toHexString(mDigests.get(name), minLength);
+        }
+
+        /**
+         * 获取校验码
+         *
+         * @param name 名称
+         * @return 校验码，不存在时返回 {@link CRCUtils#CRC_INVALID}
+         */
+        public long getChecksum(@NonNull String name) {
+            final Long checksum = mChecksums.get(name);
+            return checksum == null ? CRCUtils.CRC_INVALID : checksum;
+        }
+    }
+}
@@ -3,10 +3,9 @@ package io.github.alexmofer.android.support.security;
 import androidx.annotation.NonNull;
 
 import java.io.File;
-import java.io.InputStream;
+import java.io.FileInputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
@@ -50,10 +49,32 @@ public final class QuickXorHasher extends MessageDigest implements Cloneable {
     private final static int BITS_IN_LAST_CELL = 32;
     private final static byte SHIFT = 11;
     private final static int WIDTH_IN_BITS = 160;
+    private final static int WIDTH_IN_BYTES = WIDTH_IN_BITS / Byte.SIZE;
+    private final static int WIDTH_IN_LONGS = (WIDTH_IN_BITS - 1) / 64 + 1;
+    /**
+     * Byte i of the input lands at bit (i * SHIFT) % WIDTH_IN_BITS, and since SHIFT and
+     * WIDTH_IN_BITS are coprime the pattern repeats every WIDTH_IN_BITS bytes. So the input is
+     * simply XORed, a long at a time, into a WIDTH_IN_BITS-byte period and the rotation is
+     * applied once when the digest is taken.
+     */
+    private final static int PERIOD = WIDTH_IN_BITS;
+    private final static int PERIOD_IN_LONGS = PERIOD / 8;
+    private final static int[] CELL_INDEX = new int[PERIOD];
+    private final static int[] CELL_OFFSET = new int[PERIOD];
+
+    static {
+        for (int i = 0; i < PERIOD; i++) {
+            final int shift = (i * SHIFT) % WIDTH_IN_BITS;
+            CELL_INDEX[i] = shift / 64;
+            CELL_OFFSET[i] = shift % 64;
+        }
+    }
+
+    private final static int STATE_VERSION = 1;
+    private final static int STATE_LENGTH = 4 + 8 + PERIOD;
 
-    private long[] data;
+    private long[] period;
     private long lengthSoFar;
-    private int shiftSoFar;
 
     /**
      * NOTE: This QuickXorHash is derived from Microsoft's implementation.
@@ -74,13 +95,9 @@ public final class QuickXorHasher extends MessageDigest implements Cloneable {
      */
     public static String getHash(File file) throws Exception {
         final QuickXorHasher hasher = new QuickXorHasher();
-        final byte[] buffer = new byte[1024];
-        try (final InputStream input = Files.newInputStream(file.toPath())) {
-            while (true) {
-                final int len = input.read(buffer);
-                if (len < 0) break;  // EOF
-                hasher.update(buffer, 0, len);
-            }
+        //noinspection IOStreamConstructor
+        try (final FileInputStream input = new FileInputStream(file)) {
+            MessageDigestUtils.update(hasher, input.getChannel());
         }
         return hasher.digestToString();
     }
@@ -94,40 +111,71 @@ public final class QuickXorHasher extends MessageDigest implements Cloneable {
      */
     @Override
     protected byte[] engineDigest() {
+        final byte[] digest = computeDigest();
+        engineReset();
+        return digest;
+    }
+
+    /**
+     * Computes the digest from the current state without resetting it.
+     *
+     * @return The digest of the data hashed so far.
+     */
+    private byte[] computeDigest() {
+        // Rotate every byte of the period into place.
+        final long[] data = new long[WIDTH_IN_LONGS];
+        for (int i = 0; i < PERIOD; i++) {
+            final long value = (period[i >>> 3] >>> ((i & 7) << 3)) & 0xff;
+            if (value == 0) {
+                continue;
+            }
+            final int index = CELL_INDEX[i];
+            final int offset = CELL_OFFSET[i];
+            final boolean isLastCell = index == data.length - 1;
+            final int bitsInVectorCell = isLastCell ? BITS_IN_LAST_CELL : 64;
+            data[index] ^= value << offset;
+            if (offset > bitsInVectorCell - 8) {
+                data[isLastCell ? 0 : index + 1] ^= value >>> (bitsInVectorCell - offset);
+            }
+        }
+
         // How many bytes are in a long.
         final int longByteLength = Long.SIZE / Byte.SIZE;
 
         // Create a ByteBuffer and allocate enough room to hold our data.
-        ByteBuffer buffer = ByteBuffer.allocate((WIDTH_IN_BITS - 1) / longByteLength + 1);
+        ByteBuffer buffer = ByteBuffer.allocate(WIDTH_IN_BYTES);
 
         // We want our buffer to work in little endian order so that the longs do not have to be reversed.
         buffer.order(ByteOrder.LITTLE_ENDIAN);
 
         // Block copy all of our bit vectors into this ByteBuffer.
-        for (int i = 0; i < this.data.length; i++) {
-            if (i != this.data.length - 1) {
-                buffer.putLong(i * longByteLength, this.data[i]);
+        for (int i = 0; i < data.length; i++) {
+            if (i != data.length - 1) {
+                buffer.putLong(i * longByteLength, data[i]);
             } else {
                 // We only want four bytes of the last data part.
                 // NOTE: This may be different if the WIDTH_IN_BITS was to be changed.
-                buffer.putInt(i * longByteLength, (int) this.data[i]);
+                buffer.putInt(i * longByteLength, (int) data[i]);
             }
         }
 
         // XOR the file length with the least significant bits.
-        final int baseIndex = (WIDTH_IN_BITS / longByteLength) - longByteLength;
+        final int baseIndex = WIDTH_IN_BYTES - longByteLength;
         buffer.putLong(baseIndex, buffer.getLong(baseIndex) ^ lengthSoFar);
-
         return buffer.array();
     }
 
+    @Override
+    protected int engineGetDigestLength() {
+        return WIDTH_IN_BYTES;
+    }
+
     /**
      * Converted from Microsoft's QuickXORHash snippet's Initialize method.
      */
     @Override
     protected void engineReset() {
-        this.data = new long[(WIDTH_IN_BITS - 1) / 64 + 1];
-        this.shiftSoFar = 0;
+        this.period = new long[PERIOD_IN_LONGS];
         this.lengthSoFar = 0;
     }
 
@@ -138,16 +186,16 @@ public final class QuickXorHasher extends MessageDigest implements Cloneable {
      */
     @Override
     protected void engineUpdate(byte singleByte) {
-        byte[] array = new byte[1];
-        array[0] = singleByte;
-        this.engineUpdate(array, 0, 1);
+        final int position = (int) (lengthSoFar % PERIOD);
+        period[position >>> 3] ^= ((long) singleByte & 0xff) << ((position & 7) << 3);
+        lengthSoFar++;
     }
 
     /**
      * Converted from Microsoft's QuickXORHash snippet's HashCore method.
      * <p>
-     * Note: the C# implementation allows for unchecked operation and Java
-     * does not provide an automatic overflow or loss of info checking.
+     * Instead of walking the input once per bit position, the input is XORed into the period
+     * eight bytes at a time in a single pass.
      *
      * @param array   The input to compute the hash code for.
      * @param ibStart The offset into the byte array from which to begin using data.
@@ -155,61 +203,150 @@ public final class QuickXorHasher extends MessageDigest implements Cloneable {
      */
     @Override
     protected void engineUpdate(byte[] array, int ibStart, int cbSize) {
-        int currentShift = this.shiftSoFar;
+        final long[] period = this.period;
+        int position = (int) (lengthSoFar % PERIOD);
+        int offset = ibStart;
+        final int end = ibStart + cbSize;
 
-        // The bit vector where we'll start XORing.
-        int vectorArrayIndex = currentShift / 64;
+        // Align to a whole long of the period.
+        while (offset < end && (position & 7) != 0) {
+            period[position >>> 3] ^= ((long) array[offset++] & 0xff) << ((position & 7) << 3);
+            position++;
+        }
+        if (position == PERIOD) {
+            position = 0;
+        }
 
-        // The position within the bit vector at which we begin XORing.
-        int vectorOffset = currentShift % 64;
-        int iterations = Math.min(cbSize, WIDTH_IN_BITS);
+        int index = position >>> 3;
+        while (end - offset >= 8) {
+            period[index] ^= getLongLittleEndian(array, offset);
+            offset += 8;
+            if (++index == PERIOD_IN_LONGS) {
+                index = 0;
+            }
+        }
+        position = index << 3;
 
-        for (int i = 0; i < iterations; i++) {
-            boolean isLastCell = vectorArrayIndex == this.data.length - 1;
-            int bitsInVectorCell = isLastCell ? BITS_IN_LAST_CELL : 64;
+        while (offset < end) {
+            period[position >>> 3] ^= ((long) array[offset++] & 0xff) << ((position & 7) << 3);
+            position++;
+        }
 
-            // There's at least 2 bit vectors before we reach the end of the array.
-            if (vectorOffset <= bitsInVectorCell - 8) {
-                for (int j = ibStart + i; j < cbSize + ibStart; j += WIDTH_IN_BITS) {
-                    this.data[vectorArrayIndex] ^= ((long) array[j] & 0xff) << vectorOffset;
-                }
-            } else {
-                int index1 = vectorArrayIndex;
-                int index2 = isLastCell ? 0 : (vectorArrayIndex + 1);
-                byte low = (byte) (bitsInVectorCell - vectorOffset);
+        this.lengthSoFar += cbSize;
+    }
 
-                long xoredByte = 0;
-                for (int j = ibStart + i; j < cbSize + ibStart; j += WIDTH_IN_BITS) {
-                    xoredByte ^= ((long) array[j] & 0xff);
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        if (input.hasArray()) {
+            final int position = input.position();
+            final int length = input.remaining();
+            engineUpdate(input.array(), input.arrayOffset() + position, length);
+            input.position(position + length);
+            return;
+        }
+        final ByteOrder order = input.order();
+        input.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (input.hasRemaining() && lengthSoFar % 8 != 0) {
+                engineUpdate(input.get());
+            }
+            final long[] period = this.period;
+            int index = (int) (lengthSoFar % PERIOD) >>> 3;
+            final int words = input.remaining() >>> 3;
+            for (int i = 0; i < words; i++) {
+                period[index] ^= input.getLong();
+                if (++index == PERIOD_IN_LONGS) {
+                    index = 0;
                 }
-                this.data[index1] ^= xoredByte << vectorOffset;
-                this.data[index2] ^= xoredByte >> low;
-
             }
-            vectorOffset += SHIFT;
-            while (vectorOffset >= bitsInVectorCell) {
-                vectorArrayIndex = isLastCell ? 0 : vectorArrayIndex + 1;
-                vectorOffset -= bitsInVectorCell;
+            lengthSoFar += (long) words << 3;
+            while (input.hasRemaining()) {
+                engineUpdate(input.get());
             }
+        } finally {
+            input.order(order);
         }
-
-        // Update the starting position in a circular shift pattern.
-        this.shiftSoFar = (this.shiftSoFar + SHIFT * (cbSize % WIDTH_IN_BITS)) % WIDTH_IN_BITS;
-
-        this.lengthSoFar += cbSize;
     }
 
     @NonNull
     @Override
     public QuickXorHasher clone() throws CloneNotSupportedException {
-        return (QuickXorHasher) super.clone();
+        final QuickXorHasher clone = (QuickXorHasher) super.clone();
+        clone.period = period.clone();
+        return clone;
     }
 
     /**
      * 输出字符串摘要
+     * 不重置计算状态，之后可继续更新数据，需要重置时调用 {@link #reset()}
+     *
      * @return 字符串摘要
      */
     public String digestToString() {
-        return Base64.getEncoder().encodeToString(engineDigest());
+        return Base64.getEncoder().encodeToString(computeDigest());
+    }
+
+    /**
+     * 获取已计算的数据长度
+     *
+     * @return 数据长度
+     */
+    public long getLength() {
+        return lengthSoFar;
+    }
+
+    /**
+     * 导出计算状态，可持久化后通过 {@link #importState(byte[])} 恢复并继续计算
+     *
+     * @return 计算状态
+     */
+    public byte[] exportState() {
+        final ByteBuffer buffer = ByteBuffer.allocate(STATE_LENGTH);
+        buffer.putInt(STATE_VERSION);
+        buffer.putLong(lengthSoFar);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        for (long value : period) {
+            buffer.putLong(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 导入计算状态，此后应从返回的位置继续更新数据
+     *
+     * @param state 由 {@link #exportState()} 导出的计算状态
+     * @return 已计算的数据长度
+     */
+    public long importState(byte[] state) {
+        if (state == null || state.length != STATE_LENGTH) {
+            throw new IllegalArgumentException("Invalid state");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(state);
+        if (buffer.getInt() != STATE_VERSION) {
+            throw new IllegalArgumentException("Unsupported state version");
+        }
+        final long length = buffer.getLong();
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid state");
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        final long[] period = new long[PERIOD_IN_LONGS];
+        for (int i = 0; i < period.length; i++) {
+            period[i] = buffer.getLong();
+        }
+        this.period = period;
+        this.lengthSoFar = length;
+        return length;
+    }
+
+    private static long getLongLittleEndian(byte[] array, int offset) {
+        return ((long) array[offset] & 0xff)
+                | ((long) array[offset + 1] & 0xff) << 8
+                | ((long) array[offset + 2] & 0xff) << 16
+                | ((long) array[offset + 3] & 0xff) << 24
+                | ((long) array[offset + 4] & 0xff) << 32
+                | ((long) array[offset + 5] & 0xff) << 40
+                | ((long) array[offset + 6] & 0xff) << 48
+                | ((long) array[offset + 7] & 0xff) << 56;
     }
 }
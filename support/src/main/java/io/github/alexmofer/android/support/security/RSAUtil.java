@@ -15,18 +15,23 @@
  */
 package io.github.alexmofer.android.support.security;
 
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
-import java.security.KeyFactory;
+import java.security.Key;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.Signature;
 import java.security.SignatureException;
+import java.security.interfaces.RSAKey;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -45,6 +50,36 @@ public class RSAUtil {
     private final static String TRANSFORMATION = "RSA/ECB/OAEPWithSHA256AndMGF1Padding";
     private final static int SIZE = 2048;
     private final static String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    // OAEP 填充开销：2 * SHA-256 摘要长度 + 2
+    private final static int OAEP_OVERHEAD = 2 * 32 + 2;
+
+    /**
+     * 解析公钥，解析结果会被缓存，频繁使用同一密钥时应持有返回的公钥
+     *
+     * @param key 公钥字节（X.509 编码）
+     * @return 公钥
+     * @throws NoSuchAlgorithmException 异常
+     * @throws InvalidKeySpecException  异常
+     */
+    public static PublicKey getPublicKey(byte[] key) throws
+            NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        return CryptoCache.getPublicKey(ALGORITHM, key);
+    }
+
+    /**
+     * 解析私钥，解析结果会被缓存，频繁使用同一密钥时应持有返回的私钥
+     *
+     * @param key 私钥字节（PKCS#8 编码）
+     * @return 私钥
+     * @throws NoSuchAlgorithmException 异常
+     * @throws InvalidKeySpecException  异常
+     */
+    public static PrivateKey getPrivateKey(byte[] key) throws
+            NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        return CryptoCache.getPrivateKey(ALGORITHM, key);
+    }
 
     /**
      * 公钥加密
@@ -66,11 +101,7 @@ public class RSAUtil {
             InvalidKeyException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final PublicKey publicKey = KeyFactory.getInstance(ALGORITHM)
-                .generatePublic(new X509EncodedKeySpec(key));
-        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, publicKey);
-        return cipher.doFinal(clear);
+        return encrypt(getPublicKey(key), clear);
     }
 
     /**
@@ -93,11 +124,7 @@ public class RSAUtil {
             InvalidKeyException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final PrivateKey privateKey = KeyFactory.getInstance(ALGORITHM)
-                .generatePrivate(new PKCS8EncodedKeySpec(key));
-        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, privateKey);
-        return cipher.doFinal(clear);
+        return encrypt(getPrivateKey(key), clear);
     }
 
     /**
@@ -120,11 +147,7 @@ public class RSAUtil {
             InvalidKeyException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final PublicKey publicKey = KeyFactory.getInstance(ALGORITHM)
-                .generatePublic(new X509EncodedKeySpec(key));
-        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, publicKey);
-        return cipher.doFinal(encrypted);
+        return decrypt(getPublicKey(key), encrypted);
     }
 
     /**
@@ -147,11 +170,53 @@ public class RSAUtil {
             InvalidKeyException,
             IllegalBlockSizeException,
             BadPaddingException {
-        final PrivateKey privateKey = KeyFactory.getInstance(ALGORITHM)
-                .generatePrivate(new PKCS8EncodedKeySpec(key));
-        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, privateKey);
-        return cipher.doFinal(encrypted);
+        return decrypt(getPrivateKey(key), encrypted);
+    }
+
+    /**
+     * 加密，明文超过单个 RSA 块的容量时自动分块，密文为各块密文依次拼接
+     *
+     * @param key   公钥或私钥
+     * @param clear 明文字节
+     * @return 密文字节
+     * @throws NoSuchAlgorithmException  异常
+     * @throws NoSuchPaddingException    异常
+     * @throws InvalidKeyException       异常
+     * @throws IllegalBlockSizeException 异常
+     * @throws BadPaddingException       异常
+     */
+    public static byte[] encrypt(Key key, byte[] clear) throws
+            NoSuchAlgorithmException,
+            NoSuchPaddingException,
+            InvalidKeyException,
+            IllegalBlockSizeException,
+            BadPaddingException {
+        final int blockSize = getBlockSize(key);
+        return doFinal(CryptoCache.obtainCipher(TRANSFORMATION, Cipher.ENCRYPT_MODE, key),
+                clear, blockSize - OAEP_OVERHEAD, blockSize);
+    }
+
+    /**
+     * 解密，密文长度超过单个 RSA 块时按块解密后拼接
+     *
+     * @param key       公钥或私钥
+     * @param encrypted 密文字节
+     * @return 明文字节
+     * @throws NoSuchAlgorithmException  异常
+     * @throws NoSuchPaddingException    异常
+     * @throws InvalidKeyException       异常
+     * @throws IllegalBlockSizeException 异常
+     * @throws BadPaddingException       异常
+     */
+    public static byte[] decrypt(Key key, byte[] encrypted) throws
+            NoSuchAlgorithmException,
+            NoSuchPaddingException,
+            InvalidKeyException,
+            IllegalBlockSizeException,
+            BadPaddingException {
+        final int blockSize = getBlockSize(key);
+        return doFinal(CryptoCache.obtainCipher(TRANSFORMATION, Cipher.DECRYPT_MODE, key),
+                encrypted, blockSize, blockSize - OAEP_OVERHEAD);
     }
 
 
@@ -171,12 +236,7 @@ public class RSAUtil {
             InvalidKeySpecException,
             InvalidKeyException,
             SignatureException {
-        final PrivateKey privateKey = KeyFactory.getInstance(ALGORITHM)
-                .generatePrivate(new PKCS8EncodedKeySpec(key));
-        final Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-        signature.initSign(privateKey);
-        signature.update(data);
-        return signature.sign();
+        return signature(getPrivateKey(key), data);
     }
 
     /**
@@ -196,12 +256,91 @@ public class RSAUtil {
             InvalidKeySpecException,
             InvalidKeyException,
             SignatureException {
-        final PublicKey publicKey = KeyFactory.getInstance(ALGORITHM)
-                .generatePublic(new X509EncodedKeySpec(key));
-        final Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-        signature.initVerify(publicKey);
-        signature.update(data);
-        return signature.verify(sign);
+        return verify(getPublicKey(key), data, sign);
+    }
+
+    /**
+     * 数字签名
+     *
+     * @param key  私钥
+     * @param data 数据字节
+     * @return 签名字节
+     * @throws NoSuchAlgorithmException 异常
+     * @throws InvalidKeyException      异常
+     * @throws SignatureException       异常
+     */
+    public static byte[] signature(PrivateKey key, byte[] data) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException,
+            SignatureException {
+        return CryptoCache.sign(SIGNATURE_ALGORITHM, key, data);
+    }
+
+    /**
+     * 校验签名
+     *
+     * @param key  公钥
+     * @param data 数据字节
+     * @param sign 签名字节
+     * @return 是否通过校验
+     * @throws NoSuchAlgorithmException 异常
+     * @throws InvalidKeyException      异常
+     * @throws SignatureException       异常
+     */
+    public static boolean verify(PublicKey key, byte[] data, byte[] sign) throws
+            NoSuchAlgorithmException,
+            InvalidKeyException,
+            SignatureException {
+        return CryptoCache.verify(SIGNATURE_ALGORITHM, key, data, sign);
+    }
+
+    /**
+     * 批量数字签名，数据分段交给执行器并行处理，每个线程复用同一 Signature
+     *
+     * @param key         私钥
+     * @param data        数据字节列表
+     * @param executor    执行器，为空时在调用线程依次处理
+     * @param parallelism 并行数
+     * @return 签名字节，与数据一一对应
+     * @throws GeneralSecurityException 异常
+     */
+    public static byte[][] signature(PrivateKey key, List<byte[]> data,
+                                     Executor executor, int parallelism)
+            throws GeneralSecurityException {
+        final byte[][] signs = new byte[data.size()][];
+        runBatch(data.size(), executor, parallelism,
+                index -> signs[index] = signature(key, data.get(index)));
+        return signs;
+    }
+
+    /**
+     * 批量校验签名，数据分段交给执行器并行处理，每个线程复用同一 Signature
+     * 签名格式错误时该项视为未通过校验
+     *
+     * @param key         公钥
+     * @param data        数据字节列表
+     * @param signs       签名字节列表，与数据一一对应
+     * @param executor    执行器，为空时在调用线程依次处理
+     * @param parallelism 并行数
+     * @return 是否通过校验，与数据一一对应
+     * @throws GeneralSecurityException 异常
+     */
+    public static boolean[] verify(PublicKey key, List<byte[]> data, List<byte[]> signs,
+                                   Executor executor, int parallelism)
+            throws GeneralSecurityException {
+        if (data.size() != signs.size()) {
+            throw new IllegalArgumentException("Size mismatch: " + data.size()
+                    + " data and " + signs.size() + " signs");
+        }
+        final boolean[] results = new boolean[data.size()];
+        runBatch(data.size(), executor, parallelism, index -> {
+            try {
+                results[index] = verify(key, data.get(index), signs.get(index));
+            } catch (SignatureException e) {
+                results[index] = false;
+            }
+        });
+        return results;
     }
 
     /**
@@ -226,4 +365,97 @@ public class RSAUtil {
     public static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
         return generateKeyPair(SIZE);
     }
+
+    private static int getBlockSize(Key key) {
+        if (key instanceof RSAKey) {
+            return (((RSAKey) key).getModulus().bitLength() + 7) / 8;
+        }
+        return 0;
+    }
+
+    private static byte[] doFinal(Cipher cipher, byte[] input, int inputBlockSize,
+                                  int outputBlockSize) throws
+            IllegalBlockSizeException,
+            BadPaddingException {
+        if (inputBlockSize <= 0 || input.length <= inputBlockSize) {
+            return CryptoCache.doFinal(cipher, input);
+        }
+        // 每块独立完成填充，Cipher 在 doFinal 后恢复初始化状态，可继续处理下一块
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(
+                ((input.length + inputBlockSize - 1) / inputBlockSize)
+                        * Math.max(outputBlockSize, 0));
+        for (int offset = 0; offset < input.length; offset += inputBlockSize) {
+            final byte[] block = CryptoCache.doFinal(cipher, input, offset,
+                    Math.min(inputBlockSize, input.length - offset));
+            output.write(block, 0, block.length);
+        }
+        return output.toByteArray();
+    }
+
+    private static void runBatch(int count, Executor executor, int parallelism, Batch batch)
+            throws GeneralSecurityException {
+        final int slices = Math.max(1, Math.min(parallelism, count));
+        if (executor == null || slices == 1) {
+            for (int i = 0; i < count; i++) {
+                batch.run(i);
+            }
+            return;
+        }
+        // 按连续区间分段，首段在调用线程执行
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices - 1);
+        for (int i = 1; i < slices; i++) {
+            final int start = (int) ((long) count * i / slices);
+            final int end = (int) ((long) count * (i + 1) / slices);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                for (int index = start; index < end; index++) {
+                    batch.run(index);
+                }
+                return null;
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        GeneralSecurityException exception = null;
+        try {
+            final int end = count / slices;
+            for (int index = 0; index < end; index++) {
+                batch.run(index);
+            }
+        } catch (GeneralSecurityException e) {
+            exception = e;
+        }
+        boolean interrupted = false;
+        for (FutureTask<Void> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    if (exception == null) {
+                        exception = (GeneralSecurityException) cause;
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private interface Batch {
+        void run(int index) throws GeneralSecurityException;
+    }
 }
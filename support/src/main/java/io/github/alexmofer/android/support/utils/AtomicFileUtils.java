@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import io.github.alexmofer.android.support.function.FunctionPObjectThrowable;
+
+/**
+ * 原子文件写入工具
+ * 先写入同目录下的临时文件，同步到磁盘后重命名为目标文件，中途崩溃时目标文件保持旧内容。
+ * 每次写入使用独立的临时文件，文件同步不加锁，同时写入的文件互不等待；崩溃残留的临时文件可通过 {@link #cleanup(File)} 删除。
+ * Created by Alex on 2026/10/18.
+ */
+public final class AtomicFileUtils {
+
+    /**
+     * 不同步，仅保证替换原子性
+     */
+    public static final int SYNC_NONE = 0;
+    /**
+     * 每个文件单独同步文件与目录
+     */
+    public static final int SYNC_EACH = 1;
+    /**
+     * 每个文件单独同步，目录同步与其他线程合并
+     * 每个文件仍需一次文件同步（fsync），由各写入线程并行执行，仅同一时间段内的目录同步合并为一次，
+     * 适用于多线程频繁写入同一目录的场景，单线程写入时与 {@link #SYNC_EACH} 无异。
+     */
+    public static final int SYNC_GROUP = 2;
+    private static final String TEMP_PREFIX = ".";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // 正在写入的临时文件，清理时跳过
+    private static final HashSet<File> sTemps = new HashSet<>();
+    private static final Object sLock = new Object();
+    private static final LinkedHashSet<File> sDirectories = new LinkedHashSet<>();
+    private static long sRequested;
+    private static long sSynced;
+    private static boolean sSyncing;
+
+    private AtomicFileUtils() {
+        //no instance
+    }
+
+    /**
+     * 原子写入
+     *
+     * @param file   文件
+     * @param sync   同步方式
+     * @param writer 写入内容，不可关闭输出流
+     * @throws IOException 写入错误，目标文件保持不变
+     */
+    public static void write(@NonNull File file, int sync,
+                             @NonNull FunctionPObjectThrowable<OutputStream> writer)
+            throws IOException {
+        final File target = file.getAbsoluteFile();
+        final File parent = target.getParentFile();
+        if (parent == null) {
+            throw new IOException("No parent directory: " + file.getPath());
+        }
+        final File temp;
+        synchronized (sTemps) {
+            temp = File.createTempFile(TEMP_PREFIX + target.getName() + ".", TEMP_SUFFIX,
+                    parent);
+            sTemps.add(temp);
+        }
+        try {
+            //noinspection IOStreamConstructor
+            final FileOutputStream output = new FileOutputStream(temp);
+            try {
+                writer.execute(output);
+                output.flush();
+                if (sync != SYNC_NONE) {
+                    output.getFD().sync();
+                }
+                output.close();
+                // 重命名为原子操作，同时写入同一文件时最后重命名的内容生效
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Failed to rename to " + file.getPath());
+                }
+            } catch (Throwable t) {
+                closeQuietly(output);
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                }
+                throw new IOException(t);
+            }
+        } finally {
+            synchronized (sTemps) {
+                sTemps.remove(temp);
+            }
+        }
+        // 同步目录使重命名持久化，无法同步时仅保证原子性
+        switch (sync) {
+            case SYNC_GROUP:
+                syncDirectoryGroup(parent);
+                break;
+            case SYNC_EACH:
+                syncDirectory(parent);
+                break;
+        }
+    }
+
+    /**
+     * 原子写入，每个文件单独同步
+     *
+     * @param file   文件
+     * @param writer 写入内容，不可关闭输出流
+     * @throws IOException 写入错误，目标文件保持不变
+     */
+    public static void write(@NonNull File file,
+                             @NonNull FunctionPObjectThrowable<OutputStream> writer)
+            throws IOException {
+        write(file, SYNC_EACH, writer);
+    }
+
+    /**
+     * 原子写入
+     *
+     * @param file 文件
+     * @param data 数据
+     * @param sync 同步方式
+     * @throws IOException 写入错误，目标文件保持不变
+     */
+    public static void write(@NonNull File file, @NonNull byte[] data, int sync)
+            throws IOException {
+        write(file, sync, output -> output.write(data));
+    }
+
+    /**
+     * 原子写入，每个文件单独同步
+     *
+     * @param file 文件
+     * @param data 数据
+     * @throws IOException 写入错误，目标文件保持不变
+     */
+    public static void write(@NonNull File file, @NonNull byte[] data) throws IOException {
+        write(file, data, SYNC_EACH);
+    }
+
+    /**
+     * 删除目录下崩溃残留的临时文件
+     * 按临时文件命名规则（"." + 文件名 + "." + 随机数 + ".tmp"）删除，跳过本进程正在写入的临时文件，
+     * 其他进程同时写入该目录时不可调用。
+     *
+     * @param directory 目录
+     */
+    public static void cleanup(@NonNull File directory) {
+        final File[] temps = directory.listFiles((dir, name) -> name.startsWith(TEMP_PREFIX)
+                && name.endsWith(TEMP_SUFFIX)
+                && name.length() > TEMP_PREFIX.length() + TEMP_SUFFIX.length());
+        if (temps == null) {
+            return;
+        }
+        synchronized (sTemps) {
+            for (File temp : temps) {
+                if (temp.isFile() && !sTemps.contains(temp.getAbsoluteFile())) {
+                    //noinspection ResultOfMethodCallIgnored
+                    temp.delete();
+                }
+            }
+        }
+    }
+
+    private static void syncDirectoryGroup(File directory) {
+        boolean interrupted = false;
+        final long ticket;
+        synchronized (sLock) {
+            sDirectories.add(directory);
+            ticket = ++sRequested;
+        }
+        while (true) {
+            final File[] directories;
+            final long target;
+            synchronized (sLock) {
+                while (sSyncing && sSynced < ticket) {
+                    try {
+                        sLock.wait();
+                    } catch (InterruptedException e) {
+                        // 同步不可中断，结束后恢复中断状态
+                        interrupted = true;
+                    }
+                }
+                if (sSynced >= ticket) {
+                    break;
+                }
+                // 成为同步者，同步此前登记的全部目录
+                sSyncing = true;
+                directories = sDirectories.toArray(new File[0]);
+                sDirectories.clear();
+                target = sRequested;
+            }
+            try {
+                for (File dir : directories) {
+                    syncDirectory(dir);
+                }
+            } finally {
+                synchronized (sLock) {
+                    sSynced = target;
+                    sSyncing = false;
+                    sLock.notifyAll();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void syncDirectory(File directory) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        try (final FileChannel channel = FileChannel.open(directory.toPath(),
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (Throwable t) {
+            // ignore
+        }
+    }
+
+    private static void closeQuietly(OutputStream output) {
+        try {
+            output.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
@@ -27,7 +27,7 @@ import androidx.annotation.Nullable;
 import androidx.exifinterface.media.ExifInterface;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 
 /**
@@ -56,10 +56,13 @@ public final class BitmapUtils {
         }
         final File imageCache = new File(cache, name);
         boolean failure = false;
-        try (final FileOutputStream output = new FileOutputStream(imageCache)) {
-            if (!image.compress(Bitmap.CompressFormat.PNG, 100, output)) {
-                failure = true;
-            }
+        try {
+            // 原子写入，不会留下不完整的图片
+            AtomicFileUtils.write(imageCache, output -> {
+                if (!image.compress(Bitmap.CompressFormat.PNG, 100, output)) {
+                    throw new IOException("Failed to compress bitmap.");
+                }
+            });
         } catch (Throwable t) {
             failure = true;
         }
@@ -15,7 +15,10 @@
  */
 package io.github.alexmofer.android.support.utils;
 
-import java.math.BigInteger;
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * 字节工具
@@ -23,12 +26,25 @@ import java.math.BigInteger;
  */
 public class ByteUtils {
 
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_LOWER[i]] = (byte) i;
+            HEX_VALUES[HEX_UPPER[i]] = (byte) i;
+        }
+    }
+
     private ByteUtils() {
         //no instance
     }
 
     /**
      * 转换为16进制
+     * 与 {@code new BigInteger(1, bytes).toString(16)} 一致，去掉前导0后再补足最小长度。
      *
      * @param bytes     数据
      * @param minLength 16进制字符串长度
@@ -37,15 +53,150 @@ public class ByteUtils {
     public static String toHexString(byte[] bytes, int minLength) {
         if (bytes == null)
             return null;
-        final String str = new BigInteger(1, bytes).toString(16);
-        final StringBuilder builder = new StringBuilder();
-        if (str.length() < minLength) {
-            final int number = minLength - str.length();
-            for (int i = 0; i < number; i++) {
-                builder.append("0");
-            }
-        }
-        builder.append(str);
-        return builder.toString();
+        final int end = bytes.length * 2;
+        int start = 0;
+        while (start < end - 1 && getNibble(bytes, start) == 0) {
+            start++;
+        }
+        // 空数据视为0
+        final int significant = end - start;
+        final int length = Math.max(Math.max(significant, 1), minLength);
+        final char[] chars = new char[length];
+        final int padding = length - significant;
+        Arrays.fill(chars, 0, padding, '0');
+        for (int i = start; i < end; i++) {
+            chars[padding + i - start] = HEX_LOWER[getNibble(bytes, i)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 转换为16进制，每个字节固定输出两位
+     *
+     * @param bytes     数据
+     * @param upperCase 是否大写
+     * @return 16进制字符串
+     */
+    public static String toHexString(byte[] bytes, boolean upperCase) {
+        if (bytes == null)
+            return null;
+        final char[] chars = new char[bytes.length * 2];
+        encodeHex(bytes, 0, bytes.length, chars, 0, upperCase);
+        return new String(chars);
+    }
+
+    /**
+     * 16进制编码，每个字节固定输出两位
+     *
+     * @param bytes     数据
+     * @param offset    数据偏移
+     * @param length    数据长度
+     * @param out       输出
+     * @param outOffset 输出偏移
+     * @param upperCase 是否大写
+     * @return 输出字符数
+     */
+    public static int encodeHex(@NonNull byte[] bytes, int offset, int length,
+                                @NonNull char[] out, int outOffset, boolean upperCase) {
+        final char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+        final int end = offset + length;
+        int index = outOffset;
+        for (int i = offset; i < end; i++) {
+            final int value = bytes[i];
+            out[index++] = table[(value >>> 4) & 0x0f];
+            out[index++] = table[value & 0x0f];
+        }
+        return length * 2;
+    }
+
+    /**
+     * 16进制编码，每个字节固定输出两位
+     *
+     * @param bytes     数据
+     * @param offset    数据偏移
+     * @param length    数据长度
+     * @param out       输出
+     * @param upperCase 是否大写
+     */
+    public static void encodeHex(@NonNull byte[] bytes, int offset, int length,
+                                 @NonNull StringBuilder out, boolean upperCase) {
+        final char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+        out.ensureCapacity(out.length() + length * 2);
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final int value = bytes[i];
+            out.append(table[(value >>> 4) & 0x0f]);
+            out.append(table[value & 0x0f]);
+        }
+    }
+
+    /**
+     * 16进制编码，以 ASCII 字节写入，每个字节固定输出两位
+     *
+     * @param bytes     数据
+     * @param offset    数据偏移
+     * @param length    数据长度
+     * @param out       输出
+     * @param upperCase 是否大写
+     */
+    public static void encodeHex(@NonNull byte[] bytes, int offset, int length,
+                                 @NonNull ByteBuffer out, boolean upperCase) {
+        final char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final int value = bytes[i];
+            out.put((byte) table[(value >>> 4) & 0x0f]);
+            out.put((byte) table[value & 0x0f]);
+        }
+    }
+
+    /**
+     * 16进制解码，不区分大小写
+     *
+     * @param hex       16进制字符
+     * @param start     起始位置
+     * @param end       结束位置（不包含），长度须为偶数
+     * @param out       输出
+     * @param outOffset 输出偏移
+     * @return 输出字节数
+     */
+    public static int decodeHex(@NonNull CharSequence hex, int start, int end,
+                                @NonNull byte[] out, int outOffset) {
+        if (((end - start) & 1) != 0) {
+            throw new IllegalArgumentException("Odd number of hex digits");
+        }
+        int index = outOffset;
+        for (int i = start; i < end; i += 2) {
+            out[index++] = (byte) ((getHexValue(hex.charAt(i)) << 4)
+                    | getHexValue(hex.charAt(i + 1)));
+        }
+        return (end - start) / 2;
+    }
+
+    /**
+     * 16进制解码，不区分大小写
+     *
+     * @param hex 16进制字符，长度须为偶数
+     * @return 数据
+     */
+    public static byte[] decodeHex(CharSequence hex) {
+        if (hex == null)
+            return null;
+        final byte[] bytes = new byte[hex.length() / 2];
+        decodeHex(hex, 0, hex.length(), bytes, 0);
+        return bytes;
+    }
+
+    private static int getNibble(byte[] bytes, int index) {
+        final int value = bytes[index >> 1];
+        return (index & 1) == 0 ? (value >>> 4) & 0x0f : value & 0x0f;
+    }
+
+    private static int getHexValue(char c) {
+        final int value = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid hex digit: " + c);
+        }
+        return value;
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C 校验器
+ * 系统 CRC32C 不可用时使用（API 34 以下），slicing-by-8 查表实现，结果与 java.util.zip.CRC32C 一致。
+ * Created by Alex on 2026/10/18.
+ */
+final class CRC32CCompat implements Checksum {
+
+    static final int POLYNOMIAL = 0x82F63B78;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int crc = n;
+            for (int k = 0; k < 8; k++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLES[0][n] = crc;
+        }
+        for (int n = 0; n < 256; n++) {
+            int crc = TABLES[0][n];
+            for (int k = 1; k < 8; k++) {
+                crc = TABLES[0][crc & 0xff] ^ (crc >>> 8);
+                TABLES[k][n] = crc;
+            }
+        }
+    }
+
+    private int mCrc = 0xFFFFFFFF;
+
+    @Override
+    public void update(int b) {
+        mCrc = TABLES[0][(mCrc ^ b) & 0xff] ^ (mCrc >>> 8);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3],
+                t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int crc = mCrc;
+        int i = off;
+        final int end = off + len;
+        while (end - i >= 8) {
+            final int low = crc ^ ((b[i] & 0xff)
+                    | (b[i + 1] & 0xff) << 8
+                    | (b[i + 2] & 0xff) << 16
+                    | (b[i + 3] & 0xff) << 24);
+            crc = t7[low & 0xff] ^ t6[(low >>> 8) & 0xff]
+                    ^ t5[(low >>> 16) & 0xff] ^ t4[low >>> 24]
+                    ^ t3[b[i + 4] & 0xff] ^ t2[b[i + 5] & 0xff]
+                    ^ t1[b[i + 6] & 0xff] ^ t0[b[i + 7] & 0xff];
+            i += 8;
+        }
+        while (i < end) {
+            crc = t0[(crc ^ b[i++]) & 0xff] ^ (crc >>> 8);
+        }
+        mCrc = crc;
+    }
+
+    /**
+     * 更新校验器，读取缓冲区剩余数据
+     * 不依赖 {@link Checksum} 的默认方法（API 34 才有），API 34 以下也可调用。
+     *
+     * @param buffer 缓冲区
+     */
+    public void update(ByteBuffer buffer) {
+        final int remaining = buffer.remaining();
+        if (remaining <= 0) {
+            return;
+        }
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), remaining);
+            buffer.position(buffer.limit());
+            return;
+        }
+        final byte[] chunk = new byte[Math.min(remaining, CHUNK_SIZE)];
+        while (buffer.hasRemaining()) {
+            final int count = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, count);
+            update(chunk, 0, count);
+        }
+    }
+
+    @Override
+    public long getValue() {
+        return (~mCrc) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        mCrc = 0xFFFFFFFF;
+    }
+}
@@ -2,15 +2,26 @@ package io.github.alexmofer.android.support.utils;
 
 import android.content.Context;
 import android.net.Uri;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.CRC32;
 import java.util.zip.CRC32C;
 import java.util.zip.Checksum;
@@ -22,11 +33,178 @@ import java.util.zip.Checksum;
 public class CRCUtils {
 
     public static final long CRC_INVALID = 0;
+    public static final int ALGORITHM_CRC32 = 1;
+    public static final int ALGORITHM_CRC32C = 2;
+    private static final int CRC32_POLYNOMIAL = 0xEDB88320;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final long MAP_WINDOW_SIZE = 32 * 1024 * 1024;
+    private static final long MIN_SEGMENT_SIZE = 8 * 1024 * 1024;
 
     private CRCUtils() {
         //no instance
     }
 
+    /**
+     * 获取默认算法，未指定算法的方法均使用该算法
+     * API 34 及以上为 {@link #ALGORITHM_CRC32C}，否则为 {@link #ALGORITHM_CRC32}，
+     * 校验码需要跨设备比较时应指定算法。
+     *
+     * @return 算法
+     */
+    public static int getDefaultAlgorithm() {
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return ALGORITHM_CRC32C;
+        }
+        return ALGORITHM_CRC32;
+    }
+
+    /**
+     * 创建校验器，与 getValue 系列方法使用相同的算法
+     *
+     * @return 校验器
+     */
+    @NonNull
+    public static Checksum newChecksum() {
+        return newChecksum(getDefaultAlgorithm());
+    }
+
+    /**
+     * 创建校验器，可配合 {@link #update(Checksum, InputStream)}、
+     * {@link java.util.zip.CheckedOutputStream} 等在读写数据的同时计算校验码
+     *
+     * @param algorithm 算法
+     * @return 校验器
+     */
+    @NonNull
+    public static Checksum newChecksum(int algorithm) {
+        switch (algorithm) {
+            case ALGORITHM_CRC32:
+                return new CRC32();
+            case ALGORITHM_CRC32C:
+                if (android.os.Build.VERSION.SDK_INT >=
+                        android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+                    try {
+                        //noinspection Since15
+                        return new CRC32C();
+                    } catch (Throwable t) {
+                        // ignore
+                    }
+                }
+                return new CRC32CCompat();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * 合并校验码，即由数据 A 的校验码与数据 B 的校验码计算 A+B 的校验码
+     *
+     * @param algorithm 算法
+     * @param crc1      数据 A 的校验码
+     * @param crc2      数据 B 的校验码
+     * @param len2      数据 B 的长度
+     * @return 校验码
+     */
+    public static long combine(int algorithm, long crc1, long crc2, long len2) {
+        final long polynomial;
+        switch (algorithm) {
+            case ALGORITHM_CRC32:
+                polynomial = CRC32_POLYNOMIAL & 0xFFFFFFFFL;
+                break;
+            case ALGORITHM_CRC32C:
+                polynomial = CRC32CCompat.POLYNOMIAL & 0xFFFFFFFFL;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+        if (len2 <= 0) {
+            return crc1;
+        }
+        // 以 GF(2) 矩阵表示补零运算，按 len2 的二进制位逐次平方（同 zlib crc32_combine）
+        final long[] even = new long[32];
+        final long[] odd = new long[32];
+        odd[0] = polynomial;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>= 1;
+            if (len2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>= 1;
+        } while (len2 != 0);
+        return (crc1 ^ crc2) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 更新校验器，读取至输入流末尾，不关闭输入流
+     *
+     * @param checksum 校验器
+     * @param input    输入流
+     * @throws IOException 读取错误
+     */
+    public static void update(@NonNull Checksum checksum, @NonNull InputStream input)
+            throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            if (count == 0) {
+                count = input.read();
+                if (count < 0)
+                    break;
+                checksum.update(count);
+                continue;
+            }
+            checksum.update(buffer, 0, count);
+        }
+    }
+
+    /**
+     * 更新校验器，从通道当前位置读取至末尾
+     * 可定位的通道按大块映射（API 26 及以上）或按大块定位读取。
+     *
+     * @param checksum 校验器
+     * @param channel  通道
+     * @throws IOException 读取错误
+     */
+    public static void update(@NonNull Checksum checksum, @NonNull FileChannel channel)
+            throws IOException {
+        long position;
+        long size;
+        try {
+            position = channel.position();
+            size = channel.size();
+        } catch (IOException e) {
+            // 不支持定位的通道
+            position = 0;
+            size = 0;
+        }
+        if (position < size) {
+            update(checksum, channel, position, size - position);
+            channel.position(size);
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            checksum.update(buffer.array(), buffer.arrayOffset(), buffer.position());
+            buffer.clear();
+        }
+    }
+
     /**
      * 获取校验码
      *
@@ -36,23 +214,7 @@ public class CRCUtils {
      * @return 校验码
      */
     public static long getValue(@Nullable byte[] input, int off, int len) {
-        if (input == null) {
-            return CRC_INVALID;
-        }
-        Checksum cs = null;
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-            try {
-                //noinspection Since15
-                cs = new CRC32C();
-            } catch (Throwable t) {
-                // ignore
-            }
-        }
-        if (cs == null) {
-            cs = new CRC32();
-        }
-        cs.update(input, off, len);
-        return cs.getValue();
+        return getValue(getDefaultAlgorithm(), input, off, len);
     }
 
     /**
@@ -72,38 +234,7 @@ public class CRCUtils {
      * @return 校验码
      */
     public static long getValue(@Nullable InputStream input) {
-        if (input == null) {
-            return CRC_INVALID;
-        }
-        Checksum cs = null;
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-            try {
-                //noinspection Since15
-                cs = new CRC32C();
-            } catch (Throwable t) {
-                // ignore
-            }
-        }
-        if (cs == null) {
-            cs = new CRC32();
-        }
-        final byte[] buffer = new byte[4096];
-        int count;
-        try {
-            while ((count = input.read(buffer)) != -1) {
-                if (count == 0) {
-                    count = input.read();
-                    if (count < 0)
-                        break;
-                    cs.update(count);
-                    continue;
-                }
-                cs.update(buffer, 0, count);
-            }
-        } catch (Throwable t) {
-            return CRC_INVALID;
-        }
-        return cs.getValue();
+        return getValue(getDefaultAlgorithm(), input);
     }
 
     /**
@@ -158,32 +289,302 @@ public class CRCUtils {
      * @return 校验码
      */
     public static long getValue(@Nullable File input) {
+        return getValue(getDefaultAlgorithm(), input);
+    }
+
+    /**
+     * 获取校验码
+     *
+     * @param context Context
+     * @param input   输入
+     * @return 校验码
+     */
+    public static long getValue(@NonNull Context context, @Nullable Uri input) {
+        return getValue(getDefaultAlgorithm(), context, input);
+    }
+
+    /**
+     * 获取校验码
+     *
+     * @param algorithm 算法
+     * @param input     输入
+     * @param off       偏移
+     * @param len       长度
+     * @return 校验码
+     */
+    public static long getValue(int algorithm, @Nullable byte[] input, int off, int len) {
         if (input == null) {
-            return getValue((byte[]) null);
+            return CRC_INVALID;
         }
-        //noinspection IOStreamConstructor
-        try (final InputStream is = new FileInputStream(input)) {
-            return getValue(is);
+        final Checksum cs = newChecksum(algorithm);
+        cs.update(input, off, len);
+        return cs.getValue();
+    }
+
+    /**
+     * 获取校验码
+     *
+     * @param algorithm 算法
+     * @param input     输入
+     * @return 校验码
+     */
+    public static long getValue(int algorithm, @Nullable byte[] input) {
+        return getValue(algorithm, input, 0, input == null ? 0 : input.length);
+    }
+
+    /**
+     * 获取校验码
+     *
+     * @param algorithm 算法
+     * @param input     输入
+     * @return 校验码
+     */
+    public static long getValue(int algorithm, @Nullable InputStream input) {
+        if (input == null) {
+            return CRC_INVALID;
+        }
+        final Checksum cs = newChecksum(algorithm);
+        try {
+            // 仅完整文件的输入流可按通道读取，Asset 等输入流的通道包含范围外的数据
+            final Class<?> type = input.getClass();
+            if (type == FileInputStream.class
+                    || type == ParcelFileDescriptor.AutoCloseInputStream.class) {
+                update(cs, ((FileInputStream) input).getChannel());
+            } else {
+                update(cs, input);
+            }
         } catch (Throwable t) {
-            return getValue((byte[]) null);
+            return CRC_INVALID;
         }
+        return cs.getValue();
     }
 
     /**
      * 获取校验码
      *
-     * @param context Context
-     * @param input   输入
+     * @param algorithm 算法
+     * @param input     输入
      * @return 校验码
      */
-    public static long getValue(@NonNull Context context, @Nullable Uri input) {
+    public static long getValue(int algorithm, @Nullable File input) {
+        return getValue(algorithm, input, null, 1);
+    }
+
+    /**
+     * 获取校验码
+     *
+     * @param algorithm 算法
+     * @param context   Context
+     * @param input     输入
+     * @return 校验码
+     */
+    public static long getValue(int algorithm, @NonNull Context context, @Nullable Uri input) {
+        return getValue(algorithm, context, input, null, 1);
+    }
+
+    /**
+     * 获取校验码，文件分段后在执行器上并行计算，再合并各段校验码
+     *
+     * @param algorithm   算法
+     * @param input       输入
+     * @param executor    执行器，为空时在调用线程计算
+     * @param parallelism 并行数
+     * @return 校验码
+     */
+    public static long getValue(int algorithm, @Nullable File input,
+                                @Nullable Executor executor, int parallelism) {
         if (input == null) {
-            return getValue((byte[]) null);
+            return CRC_INVALID;
         }
-        try (final InputStream is = context.getContentResolver().openInputStream(input)) {
-            return getValue(is);
-        } catch (Exception e) {
-            return getValue((byte[]) null);
+        //noinspection IOStreamConstructor
+        try (final FileInputStream is = new FileInputStream(input)) {
+            return getValue(algorithm, is.getChannel(), executor, parallelism);
+        } catch (Throwable t) {
+            return CRC_INVALID;
+        }
+    }
+
+    /**
+     * 获取校验码，文件分段后在执行器上并行计算，再合并各段校验码
+     *
+     * @param algorithm   算法
+     * @param context     Context
+     * @param input       输入
+     * @param executor    执行器，为空时在调用线程计算
+     * @param parallelism 并行数
+     * @return 校验码
+     */
+    public static long getValue(int algorithm, @NonNull Context context, @Nullable Uri input,
+                                @Nullable Executor executor, int parallelism) {
+        if (input == null) {
+            return CRC_INVALID;
+        }
+        ParcelFileDescriptor descriptor = null;
+        try {
+            descriptor = context.getContentResolver().openFileDescriptor(input, "r");
+        } catch (Throwable t) {
+            // 非完整文件（如资源、压缩的 Asset）无法获取文件描述符，改用输入流
+        }
+        if (descriptor == null) {
+            try (final InputStream is = context.getContentResolver().openInputStream(input)) {
+                return getValue(algorithm, is);
+            } catch (Throwable t) {
+                return CRC_INVALID;
+            }
+        }
+        try (final FileInputStream is = new ParcelFileDescriptor.AutoCloseInputStream(descriptor)) {
+            return getValue(algorithm, is.getChannel(), executor, parallelism);
+        } catch (Throwable t) {
+            return CRC_INVALID;
+        }
+    }
+
+    private static long getValue(int algorithm, FileChannel channel,
+                                 @Nullable Executor executor, int parallelism)
+            throws IOException {
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            // 不支持定位的通道
+            size = 0;
+        }
+        final int segments = (int) Math.max(1, Math.min(parallelism, size / MIN_SEGMENT_SIZE));
+        if (executor == null || segments == 1) {
+            final Checksum cs = newChecksum(algorithm);
+            update(cs, channel);
+            return cs.getValue();
+        }
+        final long segmentSize = (size + segments - 1) / segments;
+        final List<FutureTask<Long>> tasks = new ArrayList<>(segments - 1);
+        for (int i = 1; i < segments; i++) {
+            final long position = segmentSize * i;
+            final long length = Math.min(segmentSize, size - position);
+            final FutureTask<Long> task = new FutureTask<>(() -> {
+                final Checksum cs = newChecksum(algorithm);
+                update(cs, channel, position, length);
+                return cs.getValue();
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        IOException exception = null;
+        long crc = CRC_INVALID;
+        try {
+            final Checksum cs = newChecksum(algorithm);
+            update(cs, channel, 0, segmentSize);
+            crc = cs.getValue();
+        } catch (IOException e) {
+            exception = e;
+        }
+        // 各段共享通道，必须等待全部分段完成
+        boolean interrupted = false;
+        for (int i = 0; i < tasks.size(); i++) {
+            final FutureTask<Long> task = tasks.get(i);
+            while (true) {
+                try {
+                    final long value = task.get();
+                    final long position = segmentSize * (i + 1);
+                    crc = combine(algorithm, crc, value, Math.min(segmentSize, size - position));
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (exception == null) {
+                        exception = new IOException(e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return crc;
+    }
+
+    private static void update(Checksum checksum, FileChannel channel,
+                               long position, long length) throws IOException {
+        final long end = position + length;
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
+            boolean mapped = false;
+            while (position < end) {
+                final long size = Math.min(MAP_WINDOW_SIZE, end - position);
+                final ByteBuffer window;
+                try {
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                } catch (IOException e) {
+                    if (mapped) {
+                        throw e;
+                    }
+                    // 不支持映射的通道
+                    break;
+                }
+                mapped = true;
+                update(checksum, window);
+                position += size;
+            }
+            if (mapped) {
+                return;
+            }
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_SIZE, length));
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            final int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            checksum.update(buffer.array(), buffer.arrayOffset(), count);
+            position += count;
+        }
+    }
+
+    /**
+     * 更新校验器，{@link Checksum#update(ByteBuffer)} 为 API 34 的默认方法，不可直接调用
+     */
+    @RequiresApi(26)
+    private static void update(Checksum checksum, ByteBuffer buffer) {
+        if (checksum instanceof CRC32) {
+            ((CRC32) checksum).update(buffer);
+            return;
+        }
+        if (checksum instanceof CRC32CCompat) {
+            ((CRC32CCompat) checksum).update(buffer);
+            return;
+        }
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            checksum.update(buffer);
+            return;
+        }
+        final byte[] chunk = new byte[Math.min(buffer.remaining(), BUFFER_SIZE)];
+        while (buffer.hasRemaining()) {
+            final int count = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, count);
+            checksum.update(chunk, 0, count);
+        }
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+
+    private static long gf2MatrixTimes(long[] mat, long vec) {
+        long sum = 0;
+        int i = 0;
+        while (vec != 0) {
+            if ((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+            vec >>>= 1;
+            i++;
         }
+        return sum;
     }
 }
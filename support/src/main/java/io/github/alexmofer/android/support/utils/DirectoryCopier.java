@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.alexmofer.android.support.function.FunctionPLongLong;
+
+/**
+ * 文件夹复制
+ * 每个文件夹与文件各为一个任务交给执行器，文件夹在其子项任务提交前创建；
+ * 正在复制的文件总大小受限，超出时复制任务等待其他文件完成。
+ * Created by Alex on 2026/10/18.
+ */
+final class DirectoryCopier {
+
+    static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 64 * 1024 * 1024;
+    private final Object mLock = new Object();
+    private final List<File> mFailure = new ArrayList<>();
+    private final AtomicLong mFiles = new AtomicLong();
+    private final AtomicLong mBytes = new AtomicLong();
+    @Nullable
+    private final FileFilter mFilter;
+    private final boolean mOverwrite;
+    private final boolean mStopOnFailure;
+    private final Executor mExecutor;
+    private final long mMaxInFlightBytes;
+    @Nullable
+    private final CancellationSignal mSignal;
+    @Nullable
+    private final FunctionPLongLong mProgress;
+    private int mPending;
+    private long mInFlightBytes;
+    private volatile IOException mException;
+    private volatile boolean mInterrupted;
+
+    /**
+     * 创建文件夹复制
+     *
+     * @param filter           筛选器
+     * @param overwrite        是否覆盖已存在的目标文件，否则视为失败
+     * @param stopOnFailure    是否在首个失败时停止
+     * @param executor         执行器
+     * @param maxInFlightBytes 正在复制的文件总大小上限
+     * @param signal           取消信号
+     * @param progress         进度回调，参数为已复制的文件数与字节数，在复制线程回调
+     */
+    DirectoryCopier(@Nullable FileFilter filter, boolean overwrite, boolean stopOnFailure,
+                    @NonNull Executor executor, long maxInFlightBytes,
+                    @Nullable CancellationSignal signal,
+                    @Nullable FunctionPLongLong progress) {
+        mFilter = filter;
+        mOverwrite = overwrite;
+        mStopOnFailure = stopOnFailure;
+        mExecutor = executor;
+        mMaxInFlightBytes = Math.max(1, maxInFlightBytes);
+        mSignal = signal;
+        mProgress = progress;
+    }
+
+    /**
+     * 复制文件夹内容，等待全部任务完成后返回
+     *
+     * @param src  源文件夹
+     * @param dest 目标文件夹，必须已存在
+     * @return 复制失败的源文件或文件夹
+     * @throws IOException                停止于首个失败时抛出该失败
+     * @throws OperationCanceledException 已取消
+     */
+    @NonNull
+    List<File> copy(@NonNull File src, @NonNull File dest) throws IOException {
+        schedule(() -> copyDirectory(src, dest));
+        synchronized (mLock) {
+            while (mPending > 0) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    // 不再提交新任务，等待已提交的任务结束
+                    mInterrupted = true;
+                }
+            }
+        }
+        if (mInterrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Directory copy interrupted: " + src.getPath());
+        }
+        if (mSignal != null) {
+            mSignal.throwIfCanceled();
+        }
+        if (mStopOnFailure && mException != null) {
+            throw mException;
+        }
+        synchronized (mFailure) {
+            return new ArrayList<>(mFailure);
+        }
+    }
+
+    private boolean isStopped() {
+        return mInterrupted
+                || (mSignal != null && mSignal.isCanceled())
+                || (mStopOnFailure && mException != null);
+    }
+
+    private void schedule(Runnable task) {
+        synchronized (mLock) {
+            mPending++;
+        }
+        final Runnable wrapper = () -> {
+            try {
+                if (!isStopped()) {
+                    task.run();
+                }
+            } finally {
+                synchronized (mLock) {
+                    if (--mPending == 0) {
+                        mLock.notifyAll();
+                    }
+                }
+            }
+        };
+        try {
+            mExecutor.execute(wrapper);
+        } catch (RejectedExecutionException e) {
+            wrapper.run();
+        }
+    }
+
+    private void fail(File src, IOException e) {
+        synchronized (mFailure) {
+            mFailure.add(src);
+        }
+        if (mException == null) {
+            mException = e;
+        }
+    }
+
+    private void copyDirectory(File src, File dest) {
+        final File[] children = src.listFiles();
+        if (children == null) {
+            fail(src, new IOException("Failed to list directory: " + src.getPath()));
+            return;
+        }
+        for (File child : children) {
+            if (isStopped()) {
+                return;
+            }
+            if (mFilter != null && !mFilter.accept(child)) {
+                continue;
+            }
+            final File target = new File(dest, child.getName());
+            if (child.isDirectory()) {
+                if (target.exists() ? !target.isDirectory() : !target.mkdir()) {
+                    fail(child, new IOException(
+                            "Failed to create destination directory: " + target.getPath()));
+                    continue;
+                }
+                schedule(() -> copyDirectory(child, target));
+                continue;
+            }
+            if (!child.isFile()) {
+                // 失效的符号链接、管道等无法复制，视为失败，避免移动时被删除
+                fail(child, new IOException("Unsupported file type: " + child.getPath()));
+                continue;
+            }
+            if (!mOverwrite && target.exists()) {
+                fail(child, new IOException(
+                        "Destination file already exists: " + target.getPath()));
+                continue;
+            }
+            schedule(() -> copyFile(child, target));
+        }
+    }
+
+    private void copyFile(File src, File dest) {
+        final long length = src.length();
+        final long acquired;
+        try {
+            acquired = acquire(length);
+        } catch (InterruptedIOException e) {
+            fail(src, e);
+            return;
+        }
+        if (acquired == 0) {
+            return;
+        }
+        try {
+            FileUtils.copyFile(src, dest);
+            final long files = mFiles.incrementAndGet();
+            final long bytes = mBytes.addAndGet(length);
+            if (mProgress != null) {
+                mProgress.execute(files, bytes);
+            }
+        } catch (IOException e) {
+            fail(src, e);
+        } finally {
+            release(acquired);
+        }
+    }
+
+    private long acquire(long length) throws InterruptedIOException {
+        // 单个文件超过上限时独占全部额度
+        final long size = Math.min(Math.max(length, 1), mMaxInFlightBytes);
+        synchronized (mLock) {
+            while (mInFlightBytes > 0 && mInFlightBytes + size > mMaxInFlightBytes) {
+                if (isStopped()) {
+                    return 0;
+                }
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (isStopped()) {
+                return 0;
+            }
+            mInFlightBytes += size;
+        }
+        return size;
+    }
+
+    private void release(long size) {
+        synchronized (mLock) {
+            mInFlightBytes -= size;
+            mLock.notifyAll();
+        }
+    }
+}
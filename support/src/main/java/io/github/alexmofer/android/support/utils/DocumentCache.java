@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 文档缓存
+ * 缓存 {@link UriUtils} 查询到的文件夹子项名称与文档元数据，超时或经 UriUtils 创建、重命名、删除后失效；
+ * 其他应用对文档的修改在超时前不可见，查找不到的子项总是重新列出。
+ * Created by Alex on 2026/10/18.
+ */
+public final class DocumentCache {
+
+    public static final long DEFAULT_TIMEOUT = 10000;
+    private static final int MAX_DIRECTORIES = 64;
+    private static final int MAX_DOCUMENTS = 1024;
+    private static final int MAX_TREE_URIS = 64;
+    private static final LruCache<Uri, Children> sChildren = new LruCache<>(MAX_DIRECTORIES);
+    private static final LruCache<Uri, Metadata> sMetadata = new LruCache<>(MAX_DOCUMENTS);
+    private static final LruCache<Uri, Uri> sTreeUris = new LruCache<>(MAX_TREE_URIS);
+    private static volatile boolean sEnabled = true;
+    private static volatile long sTimeout = DEFAULT_TIMEOUT;
+
+    private DocumentCache() {
+        //no instance
+    }
+
+    /**
+     * 设置是否启用缓存，关闭时同时清空缓存
+     *
+     * @param enabled 是否启用
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * 设置超时
+     *
+     * @param timeout 超时（毫秒）
+     */
+    public static void setTimeout(long timeout) {
+        sTimeout = timeout;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        sChildren.evictAll();
+        sMetadata.evictAll();
+        sTreeUris.evictAll();
+    }
+
+    private static boolean isExpired(long time) {
+        return SystemClock.elapsedRealtime() - time >= sTimeout;
+    }
+
+    /**
+     * 获取缓存的子项
+     *
+     * @return 子项，未缓存、已超时或者不存在该名称时返回null
+     */
+    @Nullable
+    static Uri getChild(@NonNull Uri directory, @NonNull String name) {
+        if (!sEnabled) {
+            return null;
+        }
+        final Children children = sChildren.get(directory);
+        if (children == null) {
+            return null;
+        }
+        if (isExpired(children.mTime)) {
+            sChildren.remove(directory);
+            return null;
+        }
+        return children.mNames.get(name);
+    }
+
+    /**
+     * 缓存文件夹的全部子项，同名子项取第一个
+     */
+    static void putChildren(@NonNull Uri directory, @NonNull List<DocumentMetadata> children) {
+        if (!sEnabled) {
+            return;
+        }
+        final long time = SystemClock.elapsedRealtime();
+        final HashMap<String, Uri> names = new HashMap<>();
+        for (DocumentMetadata child : children) {
+            final String name = child.getName();
+            if (name != null && !names.containsKey(name)) {
+                names.put(name, child.getUri());
+            }
+            sMetadata.put(child.getUri(), new Metadata(time, child));
+        }
+        sChildren.put(directory, new Children(time, names));
+    }
+
+    /**
+     * 获取缓存的元数据
+     *
+     * @return 元数据，未缓存或者已超时时返回null
+     */
+    @Nullable
+    static DocumentMetadata getMetadata(@NonNull Uri uri) {
+        if (!sEnabled) {
+            return null;
+        }
+        final Metadata metadata = sMetadata.get(uri);
+        if (metadata == null) {
+            return null;
+        }
+        if (isExpired(metadata.mTime)) {
+            sMetadata.remove(uri);
+            return null;
+        }
+        return metadata.mMetadata;
+    }
+
+    static void putMetadata(@NonNull DocumentMetadata metadata) {
+        if (sEnabled) {
+            sMetadata.put(metadata.getUri(), new Metadata(SystemClock.elapsedRealtime(), metadata));
+        }
+    }
+
+    @Nullable
+    static Uri getTreeUri(@NonNull Uri uri) {
+        return sEnabled ? sTreeUris.get(uri) : null;
+    }
+
+    static void putTreeUri(@NonNull Uri uri, @NonNull Uri treeUri) {
+        if (sEnabled) {
+            sTreeUris.put(uri, treeUri);
+        }
+    }
+
+    /**
+     * 文件夹中创建了子项
+     */
+    static void onChildCreated(@NonNull Uri directory) {
+        // 提供者可能修改名称，不直接加入
+        sChildren.remove(directory);
+        sMetadata.remove(directory);
+    }
+
+    /**
+     * 文档已重命名或删除
+     */
+    static void onDocumentChanged() {
+        // 部分提供者的文档 ID 包含路径，所有子孙文档可能同时变化，无法得知其父文件夹，清空全部子项缓存
+        sChildren.evictAll();
+        sMetadata.evictAll();
+    }
+
+    private static final class Children {
+        private final long mTime;
+        private final HashMap<String, Uri> mNames;
+
+        Children(long time, HashMap<String, Uri> names) {
+            mTime = time;
+            mNames = names;
+        }
+    }
+
+    private static final class Metadata {
+        private final long mTime;
+        private final DocumentMetadata mMetadata;
+
+        Metadata(long time, DocumentMetadata metadata) {
+            mTime = time;
+            mMetadata = metadata;
+        }
+    }
+}
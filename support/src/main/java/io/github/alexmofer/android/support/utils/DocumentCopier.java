@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.provider.DocumentsContract;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.alexmofer.android.support.function.FunctionPLongLong;
+import io.github.alexmofer.android.support.function.FunctionRBooleanPObject;
+
+/**
+ * 文档文件夹复制
+ * 调用线程遍历源文件夹并预先创建目标文件夹，文件复制交给执行器；
+ * 等待执行的复制任务数受限，遍历与复制同时进行。
+ * 复制过程中创建与删除文档不更新 {@link DocumentCache}，结束后统一更新一次。
+ * Created by Alex on 2026/10/18.
+ */
+@RequiresApi(21)
+abstract class DocumentCopier<T> {
+
+    private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+    final ContentResolver mResolver;
+    private final Object mLock = new Object();
+    private final List<T> mFailure = new ArrayList<>();
+    private final List<T> mDirectories = new ArrayList<>();
+    private final Set<Uri> mCreatedIn = new HashSet<>();
+    private final AtomicLong mFiles = new AtomicLong();
+    private final AtomicLong mBytes = new AtomicLong();
+    @Nullable
+    private final FunctionRBooleanPObject<T> mFilter;
+    private final boolean mMove;
+    private final Executor mExecutor;
+    private final int mMaxPending;
+    @Nullable
+    private final CancellationSignal mSignal;
+    @Nullable
+    private final FunctionPLongLong mProgress;
+    private int mPending;
+    private boolean mInterrupted;
+
+    /**
+     * 创建文档文件夹复制
+     *
+     * @param resolver   ContentResolver
+     * @param filter     筛选器
+     * @param move       是否移动，复制成功后删除源文件及已清空的源文件夹
+     * @param executor   执行器
+     * @param maxPending 已提交未完成的复制任务数上限
+     * @param signal     取消信号
+     * @param progress   进度回调，参数为已复制的文件数与字节数，在复制线程回调
+     */
+    DocumentCopier(@NonNull ContentResolver resolver,
+                   @Nullable FunctionRBooleanPObject<T> filter, boolean move,
+                   @NonNull Executor executor, int maxPending,
+                   @Nullable CancellationSignal signal,
+                   @Nullable FunctionPLongLong progress) {
+        mResolver = resolver;
+        mFilter = filter;
+        mMove = move;
+        mExecutor = executor;
+        mMaxPending = Math.max(1, maxPending);
+        mSignal = signal;
+        mProgress = progress;
+    }
+
+    /**
+     * 列出子项
+     *
+     * @return 子项，失败时返回null
+     */
+    @Nullable
+    abstract List<T> listChildren(@NonNull T directory);
+
+    @Nullable
+    abstract String getName(@NonNull T item);
+
+    abstract boolean isDirectory(@NonNull T item);
+
+    abstract boolean isFile(@NonNull T item);
+
+    @Nullable
+    abstract String getType(@NonNull T item);
+
+    @NonNull
+    abstract InputStream openInputStream(@NonNull T item) throws IOException;
+
+    abstract boolean delete(@NonNull T item);
+
+    /**
+     * 复制文件夹内容，等待全部任务完成后返回
+     *
+     * @param src  源文件夹
+     * @param dest 目标文件夹，必须已存在
+     * @return 复制失败的源文件或文件夹
+     * @throws InterruptedIOException     等待被中断
+     * @throws OperationCanceledException 已取消
+     */
+    @NonNull
+    List<T> copy(@NonNull T src, @NonNull Uri dest) throws InterruptedIOException {
+        try {
+            return copyAndWait(src, dest);
+        } finally {
+            invalidateCache();
+        }
+    }
+
+    private List<T> copyAndWait(T src, Uri dest) throws InterruptedIOException {
+        try {
+            copyDirectory(src, dest, false);
+        } finally {
+            synchronized (mLock) {
+                while (mPending > 0) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        // 不再提交新任务，等待已提交的任务结束
+                        mInterrupted = true;
+                    }
+                }
+            }
+        }
+        if (mInterrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Document copy interrupted");
+        }
+        if (mSignal != null) {
+            mSignal.throwIfCanceled();
+        }
+        if (mMove) {
+            // 复制期间删除源文件未更新缓存，列出源文件夹前清空，避免读到删除前的子项
+            DocumentCache.onDocumentChanged();
+            mDirectories.add(src);
+            // 后序记录，子文件夹先于父文件夹删除
+            for (T directory : mDirectories) {
+                final List<T> children = listChildren(directory);
+                if (children != null && children.isEmpty()) {
+                    delete(directory);
+                }
+            }
+        }
+        synchronized (mFailure) {
+            return new ArrayList<>(mFailure);
+        }
+    }
+
+    private void invalidateCache() {
+        if (mMove) {
+            // 删除了源文档，与 UriUtils.delete 相同清空全部缓存
+            DocumentCache.onDocumentChanged();
+            return;
+        }
+        synchronized (mCreatedIn) {
+            for (Uri directory : mCreatedIn) {
+                DocumentCache.onChildCreated(directory);
+            }
+        }
+    }
+
+    /**
+     * 在目标文件夹中创建文档，不更新缓存，复制结束后统一更新
+     */
+    @Nullable
+    private Uri create(Uri directory, String type, String name) {
+        synchronized (mCreatedIn) {
+            mCreatedIn.add(directory);
+        }
+        return UriUtils.createDocument(mResolver, directory, type, name);
+    }
+
+    private boolean isStopped() {
+        synchronized (mLock) {
+            if (mInterrupted) {
+                return true;
+            }
+        }
+        return mSignal != null && mSignal.isCanceled();
+    }
+
+    private void fail(T item) {
+        synchronized (mFailure) {
+            mFailure.add(item);
+        }
+    }
+
+    private void copyDirectory(T src, Uri dest, boolean created) {
+        final List<T> children = listChildren(src);
+        if (children == null) {
+            fail(src);
+            return;
+        }
+        // 新建的文件夹为空，无需列出
+        final HashMap<String, DocumentMetadata> existing = new HashMap<>();
+        if (!created) {
+            try {
+                for (DocumentMetadata child : UriUtils.listChildrenMetadata(mResolver, dest)) {
+                    existing.put(child.getName(), child);
+                }
+            } catch (Exception e) {
+                fail(src);
+                return;
+            }
+        }
+        for (T child : children) {
+            if (isStopped()) {
+                return;
+            }
+            if (mFilter != null && !mFilter.execute(child)) {
+                continue;
+            }
+            final String name = getName(child);
+            if (name == null) {
+                fail(child);
+                continue;
+            }
+            final DocumentMetadata target = existing.get(name);
+            if (isDirectory(child)) {
+                if (target != null) {
+                    if (target.isDirectory()) {
+                        copyDirectory(child, target.getUri(), false);
+                    } else {
+                        fail(child);
+                    }
+                } else {
+                    final Uri directory = create(dest,
+                            DocumentsContract.Document.MIME_TYPE_DIR, name);
+                    if (directory == null) {
+                        fail(child);
+                        continue;
+                    }
+                    copyDirectory(child, directory, true);
+                }
+                if (mMove) {
+                    mDirectories.add(child);
+                }
+                continue;
+            }
+            if (isFile(child)) {
+                if (target != null) {
+                    fail(child);
+                    continue;
+                }
+                if (!schedule(() -> copyFile(child, dest, name))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean schedule(Runnable task) {
+        synchronized (mLock) {
+            while (mPending >= mMaxPending) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    mInterrupted = true;
+                    return false;
+                }
+            }
+            mPending++;
+        }
+        final Runnable wrapper = () -> {
+            try {
+                if (!isStopped()) {
+                    task.run();
+                }
+            } finally {
+                synchronized (mLock) {
+                    mPending--;
+                    mLock.notifyAll();
+                }
+            }
+        };
+        try {
+            mExecutor.execute(wrapper);
+        } catch (RejectedExecutionException e) {
+            wrapper.run();
+        }
+        return true;
+    }
+
+    private void copyFile(T src, Uri dest, String name) {
+        String type = getType(src);
+        if (type == null) {
+            type = DEFAULT_MIME_TYPE;
+        }
+        final Uri target = create(dest, type, name);
+        if (target == null) {
+            fail(src);
+            return;
+        }
+        final long length;
+        try (final InputStream input = openInputStream(src);
+             final OutputStream output = mResolver.openOutputStream(target)) {
+            if (output == null) {
+                throw new IOException("Cannot open output stream.");
+            }
+            // 每复制一块检查取消，取消时中止复制并删除不完整的目标文件
+            length = StreamUtils.copy(input, output, StreamUtils.FLUSH_AT_END,
+                    mSignal == null ? null : copied -> mSignal.throwIfCanceled());
+        } catch (OperationCanceledException e) {
+            UriUtils.deleteDocument(mResolver, target);
+            return;
+        } catch (Throwable t) {
+            UriUtils.deleteDocument(mResolver, target);
+            fail(src);
+            return;
+        }
+        final long files = mFiles.incrementAndGet();
+        final long bytes = mBytes.addAndGet(length);
+        if (mProgress != null) {
+            mProgress.execute(files, bytes);
+        }
+        if (mMove && !delete(src)) {
+            fail(src);
+        }
+    }
+
+    /**
+     * 源为文档
+     */
+    static final class Documents extends DocumentCopier<DocumentMetadata> {
+
+        Documents(@NonNull ContentResolver resolver,
+                  @Nullable FunctionRBooleanPObject<DocumentMetadata> filter, boolean move,
+                  @NonNull Executor executor, int maxPending,
+                  @Nullable CancellationSignal signal,
+                  @Nullable FunctionPLongLong progress) {
+            super(resolver, filter, move, executor, maxPending, signal, progress);
+        }
+
+        @Nullable
+        @Override
+        List<DocumentMetadata> listChildren(@NonNull DocumentMetadata directory) {
+            try {
+                return UriUtils.listChildrenMetadata(mResolver, directory.getUri());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        @Nullable
+        @Override
+        String getName(@NonNull DocumentMetadata item) {
+            return item.getName();
+        }
+
+        @Override
+        boolean isDirectory(@NonNull DocumentMetadata item) {
+            return item.isDirectory();
+        }
+
+        @Override
+        boolean isFile(@NonNull DocumentMetadata item) {
+            return item.isFile();
+        }
+
+        @Nullable
+        @Override
+        String getType(@NonNull DocumentMetadata item) {
+            return item.getType();
+        }
+
+        @NonNull
+        @Override
+        InputStream openInputStream(@NonNull DocumentMetadata item) throws IOException {
+            final InputStream input = mResolver.openInputStream(item.getUri());
+            if (input == null) {
+                throw new IOException("Cannot open input stream.");
+            }
+            return input;
+        }
+
+        @Override
+        boolean delete(@NonNull DocumentMetadata item) {
+            return UriUtils.deleteDocument(mResolver, item.getUri());
+        }
+    }
+
+    /**
+     * 源为文件
+     */
+    static final class Files extends DocumentCopier<File> {
+
+        Files(@NonNull ContentResolver resolver,
+              @Nullable FunctionRBooleanPObject<File> filter, boolean move,
+              @NonNull Executor executor, int maxPending,
+              @Nullable CancellationSignal signal,
+              @Nullable FunctionPLongLong progress) {
+            super(resolver, filter, move, executor, maxPending, signal, progress);
+        }
+
+        @Nullable
+        @Override
+        List<File> listChildren(@NonNull File directory) {
+            final File[] children = directory.listFiles();
+            return children == null ? null : (children.length == 0 ?
+                    Collections.emptyList() : Arrays.asList(children));
+        }
+
+        @NonNull
+        @Override
+        String getName(@NonNull File item) {
+            return item.getName();
+        }
+
+        @Override
+        boolean isDirectory(@NonNull File item) {
+            return item.isDirectory();
+        }
+
+        @Override
+        boolean isFile(@NonNull File item) {
+            return item.isFile();
+        }
+
+        @Nullable
+        @Override
+        String getType(@NonNull File item) {
+            return MimeTypeUtils.getMimeType(item.getName());
+        }
+
+        @NonNull
+        @Override
+        InputStream openInputStream(@NonNull File item) throws IOException {
+            return new FileInputStream(item);
+        }
+
+        @Override
+        boolean delete(@NonNull File item) {
+            return item.delete();
+        }
+    }
+}
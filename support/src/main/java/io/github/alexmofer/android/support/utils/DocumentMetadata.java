@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+/**
+ * 文档元数据
+ * 一次查询获取的文档信息快照，不会随文档变化而更新。
+ * Created by Alex on 2026/10/18.
+ */
+@RequiresApi(19)
+public final class DocumentMetadata {
+
+    private static final int FLAG_VIRTUAL_DOCUMENT = 1 << 9;
+    static final String[] COLUMNS = new String[]{
+            DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+            DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+            DocumentsContract.Document.COLUMN_MIME_TYPE,
+            DocumentsContract.Document.COLUMN_SIZE,
+            DocumentsContract.Document.COLUMN_LAST_MODIFIED,
+            DocumentsContract.Document.COLUMN_FLAGS};
+    private final Uri mUri;
+    @Nullable
+    private final String mDocumentId;
+    @Nullable
+    private final String mName;
+    @Nullable
+    private final String mRawType;
+    private final long mLength;
+    private final long mLastModified;
+    private final int mFlags;
+
+    private DocumentMetadata(Uri uri, @Nullable String documentId, @Nullable String name,
+                             @Nullable String rawType, long length, long lastModified,
+                             int flags) {
+        mUri = uri;
+        mDocumentId = documentId;
+        mName = name;
+        mRawType = rawType;
+        mLength = length;
+        mLastModified = lastModified;
+        mFlags = flags;
+    }
+
+    /**
+     * 读取游标当前行，不存在的列取默认值
+     */
+    @NonNull
+    static DocumentMetadata read(@NonNull Uri uri, @NonNull Cursor cursor,
+                                 @NonNull Columns columns) {
+        return new DocumentMetadata(uri,
+                getString(cursor, columns.mDocumentId),
+                getString(cursor, columns.mName),
+                getString(cursor, columns.mType),
+                getLong(cursor, columns.mSize, -1),
+                getLong(cursor, columns.mLastModified, -1),
+                (int) getLong(cursor, columns.mFlags, 0));
+    }
+
+    @Nullable
+    private static String getString(Cursor cursor, int index) {
+        return index < 0 || cursor.isNull(index) ? null : cursor.getString(index);
+    }
+
+    private static long getLong(Cursor cursor, int index, long defaultValue) {
+        return index < 0 || cursor.isNull(index) ? defaultValue : cursor.getLong(index);
+    }
+
+    /**
+     * 获取链接
+     *
+     * @return 链接
+     */
+    @NonNull
+    public Uri getUri() {
+        return mUri;
+    }
+
+    /**
+     * 获取文档 ID
+     *
+     * @return 文档 ID
+     */
+    @Nullable
+    public String getDocumentId() {
+        return mDocumentId;
+    }
+
+    /**
+     * 获取名称
+     *
+     * @return 名称
+     */
+    @Nullable
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 获取 MIME 类型
+     *
+     * @return MIME 类型，文件夹时返回null
+     */
+    @Nullable
+    public String getType() {
+        return isDirectory() ? null : mRawType;
+    }
+
+    /**
+     * 获取原始 MIME 类型
+     *
+     * @return MIME 类型，文件夹时为 {@link DocumentsContract.Document#MIME_TYPE_DIR}
+     */
+    @Nullable
+    public String getRawType() {
+        return mRawType;
+    }
+
+    /**
+     * 判断是否为文件夹
+     *
+     * @return 为文件夹时返回true
+     */
+    public boolean isDirectory() {
+        return DocumentsContract.Document.MIME_TYPE_DIR.equals(mRawType);
+    }
+
+    /**
+     * 判断是否为文件
+     *
+     * @return 为文件时返回true
+     */
+    public boolean isFile() {
+        return !isDirectory() && !TextUtils.isEmpty(mRawType);
+    }
+
+    /**
+     * 判断是否为虚拟文档
+     *
+     * @return 为虚拟文档时返回true
+     */
+    public boolean isVirtual() {
+        return (mFlags & FLAG_VIRTUAL_DOCUMENT) != 0;
+    }
+
+    /**
+     * 获取文件长度
+     *
+     * @return 文件长度，未知时返回-1
+     */
+    public long length() {
+        return mLength;
+    }
+
+    /**
+     * 获取最后编辑时间
+     *
+     * @return 最后编辑时间，未知时返回-1
+     */
+    public long lastModified() {
+        return mLastModified;
+    }
+
+    /**
+     * 获取标志位
+     *
+     * @return 标志位
+     * @see DocumentsContract.Document#COLUMN_FLAGS
+     */
+    public int getFlags() {
+        return mFlags;
+    }
+
+    /**
+     * 根据类型与标志位判断是否可写，不包含权限检查
+     */
+    boolean isWritable() {
+        // Ignore documents without MIME
+        if (TextUtils.isEmpty(mRawType)) {
+            return false;
+        }
+
+        // Deletable documents considered writable
+        if ((mFlags & DocumentsContract.Document.FLAG_SUPPORTS_DELETE) != 0) {
+            return true;
+        }
+
+        // Writable normal files considered writable
+        if (isDirectory()
+                && (mFlags & DocumentsContract.Document.FLAG_DIR_SUPPORTS_CREATE) != 0) {
+            // Directories that allow create considered writable
+            return true;
+        }
+        return (mFlags & DocumentsContract.Document.FLAG_SUPPORTS_WRITE) != 0;
+    }
+
+    /**
+     * 游标中各列的位置，不存在时为-1
+     */
+    static final class Columns {
+        final int mDocumentId;
+        final int mName;
+        final int mType;
+        final int mSize;
+        final int mLastModified;
+        final int mFlags;
+
+        Columns(@NonNull Cursor cursor) {
+            mDocumentId = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_DOCUMENT_ID);
+            mName = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_DISPLAY_NAME);
+            mType = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_MIME_TYPE);
+            mSize = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_SIZE);
+            mLastModified = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+            mFlags = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_FLAGS);
+        }
+    }
+}
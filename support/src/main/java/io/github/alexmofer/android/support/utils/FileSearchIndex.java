@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import io.github.alexmofer.android.support.function.FunctionRObjectPObject;
+
+/**
+ * 文件名索引
+ * 记录目录树中所有文件名及各目录的修改时间，可保存到文件。刷新时仅重新列出修改时间变化或被标记为已变化的目录，
+ * 搜索时只在内存中匹配文件名，不访问文件系统。
+ * <pre>
+ * final FileSearchIndex index = FileSearchIndex.open(root, FileUtils.FILTER_DIRECTORY_ONLY, indexFile);
+ * index.refresh(signal);
+ * index.save();
+ * final List&lt;FileSearchUtils.Result&gt; results =
+ *         FileSearchUtils.search(index, null, "*report*", false, 50, signal);
+ * </pre>
+ * Created by Alex on 2026/10/18.
+ */
+public final class FileSearchIndex {
+
+    private static final int MAGIC = 0x46534958;// FSIX
+    private static final int VERSION = 1;
+    private static final String[] EMPTY_NAMES = new String[0];
+    private static final boolean[] EMPTY_FLAGS = new boolean[0];
+    private static final long MODIFIED_GRANULARITY = 2000;// 修改时间精度（毫秒），FAT/exFAT 为2秒
+    private final File mRoot;
+    private final FileFilter mDirFilter;
+    @Nullable
+    private final File mIndexFile;
+    private final Object mLock = new Object();
+    private final HashMap<String, Dir> mDirs = new HashMap<>();
+    private Dir mTree;
+    private volatile Snapshot mSnapshot;
+
+    private FileSearchIndex(File root, FileFilter dirFilter, @Nullable File indexFile) {
+        mRoot = root;
+        mDirFilter = dirFilter;
+        mIndexFile = indexFile;
+        mTree = new Dir(root.getPath());
+        mSnapshot = new Snapshot(mTree);
+    }
+
+    /**
+     * 打开索引，索引文件有效时载入，否则创建空索引，需调用 {@link #refresh(CancellationSignal)} 建立
+     *
+     * @param root      根目录
+     * @param dirFilter 目录过滤器，用于控制子目录是否建立索引，需线程安全
+     * @param indexFile 索引文件，为空时不保存
+     * @return 索引
+     */
+    @NonNull
+    public static FileSearchIndex open(@NonNull File root, @NonNull FileFilter dirFilter,
+                                       @Nullable File indexFile) {
+        final FileSearchIndex index = new FileSearchIndex(root, dirFilter, indexFile);
+        if (indexFile != null && indexFile.isFile()) {
+            //noinspection IOStreamConstructor
+            try (final DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(indexFile)))) {
+                index.read(input);
+            } catch (IOException | RuntimeException e) {
+                // 索引损坏或版本不符，重新建立
+                index.mTree = new Dir(root.getPath());
+            }
+            index.rebuild();
+        }
+        return index;
+    }
+
+    /**
+     * 获取根目录
+     *
+     * @return 根目录
+     */
+    @NonNull
+    public File getRoot() {
+        return mRoot;
+    }
+
+    /**
+     * 获取已索引的文件及文件夹数
+     *
+     * @return 数量
+     */
+    public int size() {
+        return mSnapshot.mNames.length;
+    }
+
+    /**
+     * 标记目录已变化，下次刷新时重新列出该目录，可在 FileObserver 回调中调用
+     *
+     * @param file 发生变化的文件或目录，文件时标记其所在目录
+     */
+    public void invalidate(@NonNull File file) {
+        synchronized (mLock) {
+            Dir dir = mDirs.get(file.getPath());
+            if (dir == null) {
+                final File parent = file.getParentFile();
+                dir = parent == null ? null : mDirs.get(parent.getPath());
+            }
+            if (dir != null) {
+                dir.mDirty = true;
+            }
+        }
+    }
+
+    /**
+     * 刷新，仅重新列出修改时间变化或已标记变化的目录
+     *
+     * @param signal 取消信号
+     * @throws OperationCanceledException 已取消，已刷新的部分保留
+     */
+    public void refresh(@NonNull CancellationSignal signal) throws OperationCanceledException {
+        synchronized (mLock) {
+            try {
+                if (!refresh(mTree, mRoot, signal)) {
+                    // 根目录不存在
+                    mTree = new Dir(mRoot.getPath());
+                }
+            } finally {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * 保存到索引文件，通过 {@link AtomicFileUtils} 原子写入，失败时保持原索引文件
+     *
+     * @throws IOException 写入错误
+     */
+    public void save() throws IOException {
+        final File file = mIndexFile;
+        if (file == null) {
+            return;
+        }
+        synchronized (mLock) {
+            AtomicFileUtils.write(file, stream -> {
+                final DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(stream));
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeUTF(mRoot.getPath());
+                write(output, mTree);
+                output.flush();
+            });
+        }
+    }
+
+    /**
+     * 搜索
+     */
+    @NonNull
+    List<FileSearchUtils.Result> search(@Nullable FileFilter fileFilter,
+                                        @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                                        @NonNull String criterion, boolean isRegex,
+                                        @NonNull FunctionRObjectPObject<FileSearchUtils.Scorer, String> scorer,
+                                        int limit, @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        if (criterion.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        final Pattern pattern = FileSearchUtils.compile(criterion, isRegex);
+        if (pattern == null) {
+            return new ArrayList<>();
+        }
+        final String cleanQuery = FileSearchUtils.getCleanQuery(criterion);
+        final Snapshot snapshot = mSnapshot;
+        final int[] candidates = isRegex ? null : snapshot.getCandidates(criterion);
+        final int count = candidates == null ? snapshot.mNames.length : candidates.length;
+        final FileSearchUtils.Scratch scratch = new FileSearchUtils.Scratch(pattern,
+                scorer.execute(cleanQuery));
+        final FileSearchUtils.TopCollector collector = new FileSearchUtils.TopCollector(limit);
+        for (int i = 0; i < count; i++) {
+            if ((i & 0xFFF) == 0) {
+                signal.throwIfCanceled();
+            }
+            final int id = candidates == null ? i : candidates[i];
+            final String name = snapshot.mLowerNames[id];
+            if (!scratch.mMatcher.reset(name).matches()) {
+                continue;
+            }
+            final File file = new File(snapshot.mDirPaths[snapshot.mParents[id]],
+                    snapshot.mNames[id]);
+            if (fileFilter != null && !fileFilter.accept(file)) {
+                continue;
+            }
+            final double score = FileSearchUtils.calculateMatchScore(
+                    fileNameHandler.execute(name), scratch.mScorer, collector.getThreshold());
+            if (!Double.isNaN(score)) {
+                collector.collect(file, score);
+            }
+        }
+        return collector.getResults();
+    }
+
+    private boolean refresh(Dir dir, File file, CancellationSignal signal) {
+        signal.throwIfCanceled();
+        final long modified = file.lastModified();
+        if (modified == 0 && !file.isDirectory()) {
+            return false;
+        }
+        if (dir.mDirty || dir.mModified != modified) {
+            final long listed = System.currentTimeMillis();
+            final File[] children = file.listFiles();
+            if (children == null) {
+                if (!file.isDirectory()) {
+                    return false;
+                }
+                // 目录存在但无法读取，保留原有内容，下次刷新时重试
+                dir.mDirty = true;
+                return true;
+            }
+            final HashMap<String, Dir> previous = new HashMap<>();
+            for (Dir subdir : dir.mSubdirs) {
+                previous.put(subdir.mName, subdir);
+            }
+            final String[] names = new String[children.length];
+            final boolean[] directories = new boolean[children.length];
+            final ArrayList<Dir> subdirs = new ArrayList<>();
+            for (int i = 0; i < children.length; i++) {
+                final File child = children[i];
+                names[i] = child.getName();
+                directories[i] = child.isDirectory();
+                if (directories[i] && mDirFilter.accept(child)) {
+                    final Dir subdir = previous.remove(names[i]);
+                    subdirs.add(subdir == null ? new Dir(names[i]) : subdir);
+                }
+            }
+            dir.mNames = names;
+            dir.mDirectories = directories;
+            dir.mSubdirs = subdirs;
+            dir.mModified = modified;
+            // 修改时间精度有限，列出后同一时间单位内的变化不会改变修改时间，需在下次刷新时重新列出
+            dir.mDirty = modified >= listed - MODIFIED_GRANULARITY;
+        }
+        for (int i = dir.mSubdirs.size() - 1; i >= 0; i--) {
+            final Dir subdir = dir.mSubdirs.get(i);
+            final File child = new File(file, subdir.mName);
+            if (!refresh(subdir, child, signal)) {
+                // 子目录已删除，下次列出父目录时同步
+                dir.mSubdirs.remove(i);
+                dir.mDirty = true;
+            }
+        }
+        return true;
+    }
+
+    private void rebuild() {
+        mDirs.clear();
+        register(mTree, mRoot.getPath());
+        mSnapshot = new Snapshot(mTree);
+    }
+
+    private void register(Dir dir, String path) {
+        mDirs.put(path, dir);
+        for (Dir subdir : dir.mSubdirs) {
+            register(subdir, path + File.separator + subdir.mName);
+        }
+    }
+
+    private void read(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Unsupported index file");
+        }
+        if (!mRoot.getPath().equals(input.readUTF())) {
+            throw new IOException("Index root mismatch");
+        }
+        mTree = read(input, mRoot.getPath());
+    }
+
+    private static Dir read(DataInputStream input, String name) throws IOException {
+        final Dir dir = new Dir(name);
+        dir.mModified = input.readLong();
+        final int count = input.readInt();
+        dir.mNames = new String[count];
+        dir.mDirectories = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            dir.mDirectories[i] = input.readBoolean();
+            dir.mNames[i] = input.readUTF();
+        }
+        final int subdirs = input.readInt();
+        dir.mSubdirs = new ArrayList<>(subdirs);
+        for (int i = 0; i < subdirs; i++) {
+            dir.mSubdirs.add(read(input, input.readUTF()));
+        }
+        return dir;
+    }
+
+    private static void write(DataOutputStream output, Dir dir) throws IOException {
+        // 待重新列出的目录不保存修改时间，加载后首次刷新时重新列出
+        output.writeLong(dir.mDirty ? -1 : dir.mModified);
+        output.writeInt(dir.mNames.length);
+        for (int i = 0; i < dir.mNames.length; i++) {
+            output.writeBoolean(dir.mDirectories[i]);
+            output.writeUTF(dir.mNames[i]);
+        }
+        output.writeInt(dir.mSubdirs.size());
+        for (Dir subdir : dir.mSubdirs) {
+            output.writeUTF(subdir.mName);
+            write(output, subdir);
+        }
+    }
+
+    private static final class Dir {
+        private final String mName;
+        private long mModified = -1;
+        private boolean mDirty;
+        private String[] mNames = EMPTY_NAMES;
+        private boolean[] mDirectories = EMPTY_FLAGS;
+        private ArrayList<Dir> mSubdirs = new ArrayList<>();
+
+        Dir(String name) {
+            mName = name;
+        }
+    }
+
+    /**
+     * 只读快照，刷新后整体替换，搜索无需加锁
+     */
+    private static final class Snapshot {
+        private final String[] mDirPaths;
+        private final String[] mNames;
+        private final String[] mLowerNames;
+        private final int[] mParents;
+        private HashMap<Long, int[]> mTrigrams;
+
+        Snapshot(Dir tree) {
+            final ArrayList<String> dirPaths = new ArrayList<>();
+            final ArrayList<String> names = new ArrayList<>();
+            final ArrayList<Integer> parents = new ArrayList<>();
+            collect(tree, tree.mName, dirPaths, names, parents);
+            mDirPaths = dirPaths.toArray(new String[0]);
+            mNames = names.toArray(new String[0]);
+            mLowerNames = new String[mNames.length];
+            mParents = new int[mNames.length];
+            for (int i = 0; i < mNames.length; i++) {
+                mLowerNames[i] = mNames[i].toLowerCase(Locale.ROOT);
+                mParents[i] = parents.get(i);
+            }
+        }
+
+        private static void collect(Dir dir, String path, ArrayList<String> dirPaths,
+                                    ArrayList<String> names, ArrayList<Integer> parents) {
+            final int index = dirPaths.size();
+            dirPaths.add(path);
+            for (String name : dir.mNames) {
+                names.add(name);
+                parents.add(index);
+            }
+            for (Dir subdir : dir.mSubdirs) {
+                collect(subdir, path + File.separator + subdir.mName, dirPaths, names, parents);
+            }
+        }
+
+        /**
+         * 以通配符条件中最长的字面量片段在三元组索引中筛选候选项，片段过短时返回空表示全部匹配
+         */
+        @Nullable
+        int[] getCandidates(String criterion) {
+            String literal = "";
+            for (String part : criterion.toLowerCase(Locale.ROOT).split("[*?]")) {
+                if (part.length() > literal.length()) {
+                    literal = part;
+                }
+            }
+            if (literal.length() < 3) {
+                return null;
+            }
+            final HashMap<Long, int[]> trigrams = getTrigrams();
+            int[] candidates = null;
+            for (int i = 0; i + 3 <= literal.length(); i++) {
+                final int[] ids = trigrams.get(trigram(literal, i));
+                if (ids == null) {
+                    return new int[0];
+                }
+                if (candidates == null || ids.length < candidates.length) {
+                    candidates = ids;
+                }
+            }
+            return candidates;
+        }
+
+        private synchronized HashMap<Long, int[]> getTrigrams() {
+            if (mTrigrams != null) {
+                return mTrigrams;
+            }
+            final HashMap<Long, int[]> postings = new HashMap<>();
+            final HashMap<Long, Integer> sizes = new HashMap<>();
+            for (int id = 0; id < mLowerNames.length; id++) {
+                final String name = mLowerNames[id];
+                for (int i = 0; i + 3 <= name.length(); i++) {
+                    final Long key = trigram(name, i);
+                    int[] ids = postings.get(key);
+                    final Integer size = sizes.get(key);
+                    final int length = size == null ? 0 : size;
+                    if (length > 0 && ids[length - 1] == id) {
+                        // 同一文件名中重复的三元组
+                        continue;
+                    }
+                    if (ids == null) {
+                        ids = new int[4];
+                        postings.put(key, ids);
+                    } else if (ids.length == length) {
+                        ids = Arrays.copyOf(ids, length * 2);
+                        postings.put(key, ids);
+                    }
+                    ids[length] = id;
+                    sizes.put(key, length + 1);
+                }
+            }
+            for (Map.Entry<Long, int[]> entry : postings.entrySet()) {
+                final int size = sizes.get(entry.getKey());
+                if (size < entry.getValue().length) {
+                    entry.setValue(Arrays.copyOf(entry.getValue(), size));
+                }
+            }
+            mTrigrams = postings;
+            return postings;
+        }
+
+        private static long trigram(String s, int index) {
+            return ((long) s.charAt(index) << 32)
+                    | ((long) s.charAt(index + 1) << 16)
+                    | s.charAt(index + 2);
+        }
+    }
+}
@@ -15,15 +15,33 @@
  */
 package io.github.alexmofer.android.support.utils;
 
+import android.os.Build;
 import android.os.CancellationSignal;
 import android.os.OperationCanceledException;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import io.github.alexmofer.android.support.function.FunctionPObject;
 import io.github.alexmofer.android.support.function.FunctionPObjectDouble;
 import io.github.alexmofer.android.support.function.FunctionRObjectPObject;
 
@@ -43,91 +61,30 @@ public final class FileSearchUtils {
     }
 
     /**
-     * Levenshtein Distance (编辑距离) 算法，计算两个字符串的相似度
-     * 优化：使用一维数组减少内存占用，提高性能
+     * 创建默认评分器
+     * 前缀匹配、包含匹配、编辑距离相似度与长度惩罚相加，完全匹配为 {@link #SCORE_MAX}。
+     *
+     * @param query 清理后的小写查询字符串
+     * @return 评分器
      */
-    private static double getSimilarity(@NonNull String str1, @NonNull String str2) {
-        int len1 = str1.length();
-        int len2 = str2.length();
-
-        if (len1 == 0 || len2 == 0) return 0.0;
-        if (str1.equals(str2)) return 1.0;
-
-        // 确保 str2 是较短的字符串，以优化空间复杂度
-        if (len1 < len2) {
-            String temp = str1;
-            str1 = str2;
-            str2 = temp;
-            int tempLen = len1;
-            len1 = len2;
-            len2 = tempLen;
-        }
-
-        int[] prevRow = new int[len2 + 1];
-        int[] currRow = new int[len2 + 1];
-
-        for (int j = 0; j <= len2; j++) {
-            prevRow[j] = j;
-        }
-
-        for (int i = 1; i <= len1; i++) {
-            currRow[0] = i;
-            char c1 = str1.charAt(i - 1);
-            for (int j = 1; j <= len2; j++) {
-                char c2 = str2.charAt(j - 1);
-                int cost = (c1 == c2) ? 0 : 1;
-
-                int deletion = prevRow[j] + 1;
-                int insertion = currRow[j - 1] + 1;
-                int substitution = prevRow[j - 1] + cost;
-
-                currRow[j] = Math.min(Math.min(deletion, insertion), substitution);
-            }
-
-            // 交换行引用
-            int[] temp = prevRow;
-            prevRow = currRow;
-            currRow = temp;
-        }
-
-        int distance = prevRow[len2];
-        // 相似度 = 1 - (编辑距离 / 最长字符串长度)
-        return 1.0 - (double) distance / len1;
+    @NonNull
+    public static Scorer createDefaultScorer(@NonNull String query) {
+        return new DefaultScorer(query);
     }
 
     /**
-     * 计算匹配度分数（分数越高越匹配）
+     * 计算匹配度分数，文件名为空时为0
      */
-    private static double calculateMatchScore(String fileName, @NonNull String query) {
+    static double calculateMatchScore(String fileName, @NonNull Scorer scorer,
+                                      double threshold) {
         if (fileName == null || fileName.isEmpty()) {
             return 0.0;
         }
-        if (fileName.equals(query)) {
-            return SCORE_MAX; // 完美完全匹配，赋予最高权重
-        }
-
-        double score = 0.0;
-
-        // 1. 位置与包含关系权重
-        if (fileName.startsWith(query)) {
-            score += SCORE_START; // 前缀匹配
-        } else if (fileName.contains(query)) {
-            score += SCORE_CONTAINS; // 包含匹配
-        }
-
-        // 2. 引入编辑距离相似度 (0.0 ~ 1.0)
-        double similarity = getSimilarity(fileName, query);
-        score += similarity * SCORE_SIMILARITY;
-
-        // 3. 长度惩罚（避免 "test.txt" 和 "a_very_long_name_with_test_inside.txt" 分数一样）
-        // 文件名越短，query 的占比越高
-        score += (1.0 / fileName.length()) * SCORE_LENGTH_PENALTY;
-
-        return score;
+        return scorer.score(fileName, threshold);
     }
 
     @NonNull
-    private static String convertGlobToRegex(@NonNull String glob) {
+    static String convertGlobToRegex(@NonNull String glob) {
         StringBuilder regex = new StringBuilder("^");
         for (char c : glob.toCharArray()) {
             switch (c) {
@@ -160,39 +117,57 @@ public final class FileSearchUtils {
         return regex.toString();
     }
 
-    private static void executeSearch(@NonNull File currentDir,
-                                      @NonNull FileFilter fileFilter,
-                                      @NonNull FileFilter dirFilter,
-                                      @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
-                                      @NonNull Pattern pattern,
-                                      @NonNull String cleanQuery,
-                                      @NonNull FunctionPObjectDouble<File> callback,
-                                      @NonNull CancellationSignal signal)
-            throws OperationCanceledException {
-        final File[] files = currentDir.listFiles();
-        if (files == null) {
-            return;
+    /**
+     * 编译搜索条件，出错时返回空
+     */
+    @Nullable
+    static Pattern compile(@NonNull String criterion, boolean isRegex) {
+        final String regex;
+        try {
+            regex = isRegex ? criterion : convertGlobToRegex(criterion);
+        } catch (Exception e) {
+            // 如果正则转换出错，直接返回
+            return null;
         }
-        for (File file : files) {
-            signal.throwIfCanceled();
-            // fileFilter 筛选器决定是否接受文件或者文件夹作为搜索结果
-            if (fileFilter.accept(file)) {
-                final String name = file.getName().toLowerCase();
-                // 对文件名进行模式匹配
-                if (pattern.matcher(name).matches()) {
-                    // 计算分数（大小写不敏感）
-                    callback.execute(file,
-                            calculateMatchScore(fileNameHandler.execute(name), cleanQuery));
-                }
-            }
-            if (file.isDirectory()) {
-                // dirFilter 筛选器决定是否递归搜索子目录
-                if (dirFilter.accept(file)) {
-                    executeSearch(file, fileFilter, dirFilter, fileNameHandler,
-                            pattern, cleanQuery, callback, signal);
-                }
-            }
+        try {
+            return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        } catch (Exception e) {
+            // 如果正则编译出错，直接返回
+            return null;
+        }
+    }
+
+    /**
+     * 清理查询字符串用于相似度计算，去除通配符
+     */
+    @NonNull
+    static String getCleanQuery(@NonNull String criterion) {
+        return criterion.replace("*", "").replace("?", "").toLowerCase(Locale.ROOT);
+    }
+
+    @Nullable
+    private static Search prepare(@NonNull File startDir,
+                                  @NonNull FileFilter fileFilter,
+                                  @NonNull FileFilter dirFilter,
+                                  @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                                  @NonNull String criterion, boolean isRegex,
+                                  @NonNull FunctionRObjectPObject<Scorer, String> scorer,
+                                  @NonNull Collector collector,
+                                  @NonNull CancellationSignal signal) {
+        if (startDir.isFile()) {
+            return null;
+        }
+        if (criterion.isEmpty()) {
+            return null;
+        }
+
+        final Pattern pattern = compile(criterion, isRegex);
+        if (pattern == null) {
+            return null;
         }
+        final String cleanQuery = getCleanQuery(criterion);
+        return new Search(fileFilter, dirFilter, fileNameHandler, pattern, cleanQuery,
+                scorer, collector, signal);
     }
 
     /**
@@ -204,6 +179,7 @@ public final class FileSearchUtils {
      * @param fileNameHandler 文件名处理器，可控制拓展名是否用于评分计算
      * @param criterion       搜索条件
      * @param isRegex         是否为正则表达式
+     * @param scorer          评分器工厂，参数为清理后的小写查询字符串
      * @param callback        回调
      */
     public static void search(@NonNull File startDir,
@@ -211,35 +187,38 @@ public final class FileSearchUtils {
                               @NonNull FileFilter dirFilter,
                               @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
                               @NonNull String criterion, boolean isRegex,
+                              @NonNull FunctionRObjectPObject<Scorer, String> scorer,
                               @NonNull FunctionPObjectDouble<File> callback,
                               @NonNull CancellationSignal signal) throws OperationCanceledException {
-        if (startDir.isFile()) {
-            return;
-        }
-        if (criterion.isEmpty()) {
+        final Search search = prepare(startDir, fileFilter, dirFilter, fileNameHandler,
+                criterion, isRegex, scorer, new CallbackCollector(callback), signal);
+        if (search == null) {
             return;
         }
-
-        final String regex;
-        try {
-            regex = isRegex ? criterion : convertGlobToRegex(criterion);
-        } catch (Exception e) {
-            // 如果正则转换出错，直接返回
-            return;
-        }
-
-        final Pattern pattern;
-        try {
-            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-        } catch (Exception e) {
-            // 如果正则编译出错，直接返回
-            return;
-        }
-        // 清理查询字符串用于相似度计算，去除通配符
-        final String cleanQuery = criterion.replace("*", "").replace("?", "").toLowerCase();
         signal.throwIfCanceled();
-        executeSearch(startDir, fileFilter, dirFilter, fileNameHandler,
-                pattern, cleanQuery, callback, signal);
+        search.searchRecursive(startDir);
+    }
+
+    /**
+     * 搜索目录
+     *
+     * @param startDir        起始目录
+     * @param fileFilter      文件过滤器，用于控制文件或者文件夹是否可作为搜索结果
+     * @param dirFilter       目录过滤器，用于控制子目录是否可搜索
+     * @param fileNameHandler 文件名处理器，可控制拓展名是否用于评分计算
+     * @param criterion       搜索条件
+     * @param isRegex         是否为正则表达式
+     * @param callback        回调
+     */
+    public static void search(@NonNull File startDir,
+                              @NonNull FileFilter fileFilter,
+                              @NonNull FileFilter dirFilter,
+                              @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                              @NonNull String criterion, boolean isRegex,
+                              @NonNull FunctionPObjectDouble<File> callback,
+                              @NonNull CancellationSignal signal) throws OperationCanceledException {
+        search(startDir, fileFilter, dirFilter, fileNameHandler, criterion, isRegex,
+                FileSearchUtils::createDefaultScorer, callback, signal);
     }
 
     /**
@@ -261,4 +240,614 @@ public final class FileSearchUtils {
         search(startDir, fileFilter, dirFilter, name -> name,
                 criterion, isRegex, callback, signal);
     }
+
+    /**
+     * 并行搜索目录，仅保留分数最高的结果
+     * 各子目录在 ForkJoinPool 中并行遍历，分数不可能进入前 limit 名的文件跳过编辑距离计算。
+     *
+     * @param startDir        起始目录
+     * @param fileFilter      文件过滤器，用于控制文件或者文件夹是否可作为搜索结果，需线程安全
+     * @param dirFilter       目录过滤器，用于控制子目录是否可搜索，需线程安全
+     * @param fileNameHandler 文件名处理器，可控制拓展名是否用于评分计算，需线程安全
+     * @param criterion       搜索条件
+     * @param isRegex         是否为正则表达式
+     * @param scorer          评分器工厂，参数为清理后的小写查询字符串，每个线程创建一个评分器
+     * @param limit           结果数上限
+     * @param parallelism     并行数
+     * @param signal          取消信号
+     * @return 搜索结果，按分数从高到低排列
+     */
+    @NonNull
+    public static List<Result> search(@NonNull File startDir,
+                                      @NonNull FileFilter fileFilter,
+                                      @NonNull FileFilter dirFilter,
+                                      @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                                      @NonNull String criterion, boolean isRegex,
+                                      @NonNull FunctionRObjectPObject<Scorer, String> scorer,
+                                      int limit, int parallelism,
+                                      @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        final TopCollector collector = new TopCollector(limit);
+        final Search search = prepare(startDir, fileFilter, dirFilter, fileNameHandler,
+                criterion, isRegex, scorer, collector, signal);
+        if (search == null) {
+            return new ArrayList<>();
+        }
+        signal.throwIfCanceled();
+        if (parallelism <= 1) {
+            search.searchRecursive(startDir);
+        } else {
+            final ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new SearchTask(search, startDir));
+            } catch (RuntimeException e) {
+                signal.throwIfCanceled();
+                throw e;
+            } finally {
+                pool.shutdownNow();
+            }
+            signal.throwIfCanceled();
+        }
+        return collector.getResults();
+    }
+
+    /**
+     * 并行搜索目录，仅保留分数最高的结果
+     *
+     * @param startDir        起始目录
+     * @param fileFilter      文件过滤器，用于控制文件或者文件夹是否可作为搜索结果，需线程安全
+     * @param dirFilter       目录过滤器，用于控制子目录是否可搜索，需线程安全
+     * @param fileNameHandler 文件名处理器，可控制拓展名是否用于评分计算，需线程安全
+     * @param criterion       搜索条件
+     * @param isRegex         是否为正则表达式
+     * @param limit           结果数上限
+     * @param parallelism     并行数
+     * @param signal          取消信号
+     * @return 搜索结果，按分数从高到低排列
+     */
+    @NonNull
+    public static List<Result> search(@NonNull File startDir,
+                                      @NonNull FileFilter fileFilter,
+                                      @NonNull FileFilter dirFilter,
+                                      @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                                      @NonNull String criterion, boolean isRegex,
+                                      int limit, int parallelism,
+                                      @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        return search(startDir, fileFilter, dirFilter, fileNameHandler, criterion, isRegex,
+                FileSearchUtils::createDefaultScorer, limit, parallelism, signal);
+    }
+
+    /**
+     * 并行搜索目录，仅保留分数最高的结果
+     *
+     * @param startDir    起始目录
+     * @param fileFilter  文件过滤器，用于控制文件或者文件夹是否可作为搜索结果，需线程安全
+     * @param dirFilter   目录过滤器，用于控制子目录是否可搜索，需线程安全
+     * @param criterion   搜索条件
+     * @param isRegex     是否为正则表达式
+     * @param limit       结果数上限
+     * @param parallelism 并行数
+     * @param signal      取消信号
+     * @return 搜索结果，按分数从高到低排列
+     */
+    @NonNull
+    public static List<Result> search(@NonNull File startDir,
+                                      @NonNull FileFilter fileFilter,
+                                      @NonNull FileFilter dirFilter,
+                                      @NonNull String criterion, boolean isRegex,
+                                      int limit, int parallelism,
+                                      @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        return search(startDir, fileFilter, dirFilter, name -> name,
+                criterion, isRegex, limit, parallelism, signal);
+    }
+
+    /**
+     * 在文件名索引中搜索，仅保留分数最高的结果
+     * 不访问文件系统，结果为索引最近一次刷新时的状态。
+     *
+     * @param index           文件名索引
+     * @param fileFilter      文件过滤器，用于控制匹配的文件或者文件夹是否可作为搜索结果
+     * @param fileNameHandler 文件名处理器，可控制拓展名是否用于评分计算
+     * @param criterion       搜索条件
+     * @param isRegex         是否为正则表达式
+     * @param scorer          评分器工厂，参数为清理后的小写查询字符串
+     * @param limit           结果数上限
+     * @param signal          取消信号
+     * @return 搜索结果，按分数从高到低排列
+     */
+    @NonNull
+    public static List<Result> search(@NonNull FileSearchIndex index,
+                                      @Nullable FileFilter fileFilter,
+                                      @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                                      @NonNull String criterion, boolean isRegex,
+                                      @NonNull FunctionRObjectPObject<Scorer, String> scorer,
+                                      int limit, @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        return index.search(fileFilter, fileNameHandler, criterion, isRegex, scorer, limit,
+                signal);
+    }
+
+    /**
+     * 在文件名索引中搜索，仅保留分数最高的结果
+     *
+     * @param index           文件名索引
+     * @param fileFilter      文件过滤器，用于控制匹配的文件或者文件夹是否可作为搜索结果
+     * @param fileNameHandler 文件名处理器，可控制拓展名是否用于评分计算
+     * @param criterion       搜索条件
+     * @param isRegex         是否为正则表达式
+     * @param limit           结果数上限
+     * @param signal          取消信号
+     * @return 搜索结果，按分数从高到低排列
+     */
+    @NonNull
+    public static List<Result> search(@NonNull FileSearchIndex index,
+                                      @Nullable FileFilter fileFilter,
+                                      @NonNull FunctionRObjectPObject<String, String> fileNameHandler,
+                                      @NonNull String criterion, boolean isRegex, int limit,
+                                      @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        return search(index, fileFilter, fileNameHandler, criterion, isRegex,
+                FileSearchUtils::createDefaultScorer, limit, signal);
+    }
+
+    /**
+     * 在文件名索引中搜索，仅保留分数最高的结果
+     *
+     * @param index      文件名索引
+     * @param fileFilter 文件过滤器，用于控制匹配的文件或者文件夹是否可作为搜索结果
+     * @param criterion  搜索条件
+     * @param isRegex    是否为正则表达式
+     * @param limit      结果数上限
+     * @param signal     取消信号
+     * @return 搜索结果，按分数从高到低排列
+     */
+    @NonNull
+    public static List<Result> search(@NonNull FileSearchIndex index,
+                                      @Nullable FileFilter fileFilter,
+                                      @NonNull String criterion, boolean isRegex, int limit,
+                                      @NonNull CancellationSignal signal)
+            throws OperationCanceledException {
+        return search(index, fileFilter, name -> name, criterion, isRegex, limit, signal);
+    }
+
+    /**
+     * 评分器
+     * 每次搜索由评分器工厂为每个线程创建，无需线程安全。
+     */
+    public interface Scorer {
+
+        /**
+         * 计算匹配度分数（分数越高越匹配）
+         *
+         * @param fileName  小写并经文件名处理器处理后的文件名，不为空
+         * @param threshold 分数下限，分数不可能超过下限时可返回 {@link Double#NaN} 以跳过该文件
+         * @return 分数
+         */
+        double score(@NonNull String fileName, double threshold);
+    }
+
+    /**
+     * 搜索结果
+     */
+    public static final class Result {
+        private final File mFile;
+        private final double mScore;
+
+        Result(File file, double score) {
+            mFile = file;
+            mScore = score;
+        }
+
+        /**
+         * 获取文件
+         *
+         * @return 文件
+         */
+        @NonNull
+        public File getFile() {
+            return mFile;
+        }
+
+        /**
+         * 获取分数
+         *
+         * @return 分数
+         */
+        public double getScore() {
+            return mScore;
+        }
+    }
+
+    /**
+     * 单次搜索的条件与状态
+     */
+    private static final class Search {
+        private final FileFilter mFileFilter;
+        private final FileFilter mDirFilter;
+        private final FunctionRObjectPObject<String, String> mFileNameHandler;
+        private final Pattern mPattern;
+        private final String mCleanQuery;
+        private final FunctionRObjectPObject<Scorer, String> mScorer;
+        private final Collector mCollector;
+        private final CancellationSignal mSignal;
+        // 每次搜索独立的线程变量，搜索结束后随之回收
+        private final ThreadLocal<Scratch> mScratch = new ThreadLocal<Scratch>() {
+            @Override
+            protected Scratch initialValue() {
+                return new Scratch(mPattern, mScorer.execute(mCleanQuery));
+            }
+        };
+
+        Search(FileFilter fileFilter, FileFilter dirFilter,
+               FunctionRObjectPObject<String, String> fileNameHandler,
+               Pattern pattern, String cleanQuery,
+               FunctionRObjectPObject<Scorer, String> scorer,
+               Collector collector, CancellationSignal signal) {
+            mFileFilter = fileFilter;
+            mDirFilter = dirFilter;
+            mFileNameHandler = fileNameHandler;
+            mPattern = pattern;
+            mCleanQuery = cleanQuery;
+            mScorer = scorer;
+            mCollector = collector;
+            mSignal = signal;
+        }
+
+        /**
+         * 在当前线程深度优先搜索
+         */
+        void searchRecursive(File dir) {
+            listChildren(dir, this::searchRecursive);
+        }
+
+        /**
+         * 匹配目录下的文件，可搜索的子目录交给 subdirectory
+         */
+        void listChildren(File dir, FunctionPObject<File> subdirectory) {
+            final Scratch scratch = mScratch.get();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                // 流式遍历，不需要一次创建整个目录的数组
+                try (final DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+                    for (Path path : stream) {
+                        visit(path.toFile(), scratch, subdirectory);
+                    }
+                    return;
+                } catch (IOException | DirectoryIteratorException | InvalidPathException |
+                         SecurityException e) {
+                    // 无法读取的目录按空目录处理，与 listFiles 一致
+                    return;
+                }
+            }
+            final File[] files = dir.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                visit(file, scratch, subdirectory);
+            }
+        }
+
+        private void visit(File file, Scratch scratch, FunctionPObject<File> subdirectory) {
+            mSignal.throwIfCanceled();
+            // fileFilter 筛选器决定是否接受文件或者文件夹作为搜索结果
+            if (mFileFilter.accept(file)) {
+                final String name = file.getName().toLowerCase(Locale.ROOT);
+                // 对文件名进行模式匹配
+                if (scratch.mMatcher.reset(name).matches()) {
+                    // 计算分数（大小写不敏感）
+                    final double score = calculateMatchScore(mFileNameHandler.execute(name),
+                            scratch.mScorer, mCollector.getThreshold());
+                    if (!Double.isNaN(score)) {
+                        mCollector.collect(file, score);
+                    }
+                }
+            }
+            if (file.isDirectory()) {
+                // dirFilter 筛选器决定是否递归搜索子目录
+                if (mDirFilter.accept(file)) {
+                    subdirectory.execute(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 默认评分器
+     * 查询字符串不超过64个字符时使用 Myers 位并行算法计算编辑距离，每个字符 O(1)；否则使用动态规划。
+     */
+    static final class DefaultScorer implements Scorer {
+        private final String mQuery;
+        // Myers 算法中查询字符串各字符出现位置的位掩码
+        private final long[] mAsciiMasks;
+        private final char[] mOtherChars;
+        private final long[] mOtherMasks;
+        private int[] mPrevRow;
+        private int[] mCurrRow;
+
+        DefaultScorer(String query) {
+            mQuery = query;
+            final int length = query.length();
+            if (length == 0 || length > Long.SIZE) {
+                mAsciiMasks = null;
+                mOtherChars = null;
+                mOtherMasks = null;
+                return;
+            }
+            mAsciiMasks = new long[128];
+            final char[] otherChars = new char[length];
+            final long[] otherMasks = new long[length];
+            int others = 0;
+            for (int i = 0; i < length; i++) {
+                final char c = query.charAt(i);
+                if (c < 128) {
+                    mAsciiMasks[c] |= 1L << i;
+                    continue;
+                }
+                int index = 0;
+                while (index < others && otherChars[index] != c) {
+                    index++;
+                }
+                if (index == others) {
+                    otherChars[others++] = c;
+                }
+                otherMasks[index] |= 1L << i;
+            }
+            mOtherChars = Arrays.copyOf(otherChars, others);
+            mOtherMasks = Arrays.copyOf(otherMasks, others);
+        }
+
+        @Override
+        public double score(@NonNull String fileName, double threshold) {
+            final String query = mQuery;
+            if (fileName.equals(query)) {
+                return SCORE_MAX; // 完美完全匹配，赋予最高权重
+            }
+
+            double score = 0.0;
+
+            // 1. 位置与包含关系权重，一次查找同时判断前缀与包含
+            final int index = fileName.indexOf(query);
+            if (index == 0) {
+                score += SCORE_START; // 前缀匹配
+            } else if (index > 0) {
+                score += SCORE_CONTAINS; // 包含匹配
+            }
+
+            // 3. 长度惩罚（避免 "test.txt" 和 "a_very_long_name_with_test_inside.txt" 分数一样）
+            // 文件名越短，query 的占比越高
+            final double penalty = (1.0 / fileName.length()) * SCORE_LENGTH_PENALTY;
+
+            // 编辑距离不小于长度差，据此得到相似度上限，无法超过下限时无需计算
+            final int max = Math.max(fileName.length(), query.length());
+            final double bound = query.isEmpty() ? 0.0 :
+                    1.0 - (double) Math.abs(fileName.length() - query.length()) / max;
+            if (score + bound * SCORE_SIMILARITY + penalty <= threshold) {
+                return Double.NaN;
+            }
+
+            // 2. 引入编辑距离相似度 (0.0 ~ 1.0)
+            double similarity = getSimilarity(fileName);
+            score += similarity * SCORE_SIMILARITY;
+
+            score += penalty;
+
+            return score;
+        }
+
+        /**
+         * 相似度 = 1 - (编辑距离 / 最长字符串长度)
+         */
+        private double getSimilarity(String fileName) {
+            final int len1 = fileName.length();
+            final int len2 = mQuery.length();
+            if (len1 == 0 || len2 == 0) return 0.0;
+            final int distance = mAsciiMasks != null ?
+                    getDistanceBitParallel(fileName) : getDistance(fileName);
+            return 1.0 - (double) distance / Math.max(len1, len2);
+        }
+
+        private long getMask(char c) {
+            if (c < 128) {
+                return mAsciiMasks[c];
+            }
+            for (int i = 0; i < mOtherChars.length; i++) {
+                if (mOtherChars[i] == c) {
+                    return mOtherMasks[i];
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Myers 位并行编辑距离，每一位表示动态规划表中一列的纵向差值
+         */
+        int getDistanceBitParallel(String text) {
+            final int length = mQuery.length();
+            final long last = 1L << (length - 1);
+            long pv = -1L;
+            long mv = 0L;
+            int distance = length;
+            for (int i = 0; i < text.length(); i++) {
+                final long eq = getMask(text.charAt(i));
+                final long xv = eq | mv;
+                final long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & last) != 0) {
+                    distance++;
+                } else if ((mh & last) != 0) {
+                    distance--;
+                }
+                // 首行为 0..n，横向差值恒为 1
+                ph = (ph << 1) | 1L;
+                mh = mh << 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+            return distance;
+        }
+
+        /**
+         * Levenshtein Distance (编辑距离) 算法
+         * 优化：使用一维数组减少内存占用，提高性能；数组由评分器复用
+         */
+        int getDistance(String str1) {
+            String str2 = mQuery;
+            int len1 = str1.length();
+            int len2 = str2.length();
+
+            // 确保 str2 是较短的字符串，以优化空间复杂度
+            if (len1 < len2) {
+                String temp = str1;
+                str1 = str2;
+                str2 = temp;
+                int tempLen = len1;
+                len1 = len2;
+                len2 = tempLen;
+            }
+
+            if (mPrevRow == null || mPrevRow.length < len2 + 1) {
+                mPrevRow = new int[len2 + 1];
+                mCurrRow = new int[len2 + 1];
+            }
+            int[] prevRow = mPrevRow;
+            int[] currRow = mCurrRow;
+
+            for (int j = 0; j <= len2; j++) {
+                prevRow[j] = j;
+            }
+
+            for (int i = 1; i <= len1; i++) {
+                currRow[0] = i;
+                char c1 = str1.charAt(i - 1);
+                for (int j = 1; j <= len2; j++) {
+                    char c2 = str2.charAt(j - 1);
+                    int cost = (c1 == c2) ? 0 : 1;
+
+                    int deletion = prevRow[j] + 1;
+                    int insertion = currRow[j - 1] + 1;
+                    int substitution = prevRow[j - 1] + cost;
+
+                    currRow[j] = Math.min(Math.min(deletion, insertion), substitution);
+                }
+
+                // 交换行引用
+                int[] temp = prevRow;
+                prevRow = currRow;
+                currRow = temp;
+            }
+
+            return prevRow[len2];
+        }
+    }
+
+    private static final class SearchTask extends RecursiveAction {
+        private final Search mSearch;
+        private final File mDir;
+
+        SearchTask(Search search, File dir) {
+            mSearch = search;
+            mDir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            final List<SearchTask> subtasks = new ArrayList<>();
+            mSearch.listChildren(mDir, dir -> subtasks.add(new SearchTask(mSearch, dir)));
+            invokeAll(subtasks);
+        }
+    }
+
+    /**
+     * 线程内复用的计算数据
+     */
+    static final class Scratch {
+        final Matcher mMatcher;
+        final Scorer mScorer;
+
+        Scratch(Pattern pattern, Scorer scorer) {
+            mMatcher = pattern.matcher("");
+            mScorer = scorer;
+        }
+    }
+
+    interface Collector {
+
+        /**
+         * 获取分数下限，不超过下限的结果将被丢弃
+         */
+        double getThreshold();
+
+        void collect(File file, double score);
+    }
+
+    private static final class CallbackCollector implements Collector {
+        private final FunctionPObjectDouble<File> mCallback;
+
+        CallbackCollector(FunctionPObjectDouble<File> callback) {
+            mCallback = callback;
+        }
+
+        @Override
+        public double getThreshold() {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        @Override
+        public void collect(File file, double score) {
+            mCallback.execute(file, score);
+        }
+    }
+
+    static final class TopCollector implements Collector {
+        private final int mLimit;
+        // 最小堆，堆顶为当前第 limit 名
+        private final PriorityQueue<Result> mResults;
+        private volatile double mThreshold = Double.NEGATIVE_INFINITY;
+
+        TopCollector(int limit) {
+            mLimit = limit;
+            mResults = new PriorityQueue<>(Math.min(limit, 1024) + 1,
+                    (r1, r2) -> Double.compare(r1.mScore, r2.mScore));
+        }
+
+        @Override
+        public double getThreshold() {
+            return mThreshold;
+        }
+
+        @Override
+        public void collect(File file, double score) {
+            if (score <= mThreshold) {
+                return;
+            }
+            synchronized (mResults) {
+                mResults.offer(new Result(file, score));
+                if (mResults.size() > mLimit) {
+                    mResults.poll();
+                }
+                if (mResults.size() == mLimit) {
+                    //noinspection DataFlowIssue
+                    mThreshold = mResults.peek().mScore;
+                }
+            }
+        }
+
+        List<Result> getResults() {
+            final List<Result> results;
+            synchronized (mResults) {
+                results = new ArrayList<>(mResults);
+            }
+            Collections.sort(results, (r1, r2) -> {
+                final int c = Double.compare(r2.mScore, r1.mScore);
+                return c != 0 ? c : r1.mFile.getPath().compareTo(r2.mFile.getPath());
+            });
+            return results;
+        }
+    }
 }
@@ -15,6 +15,8 @@
  */
 package io.github.alexmofer.android.support.utils;
 
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.os.ParcelFileDescriptor;
 import android.text.TextUtils;
 import android.webkit.MimeTypeMap;
@@ -22,7 +24,6 @@ import android.webkit.MimeTypeMap;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileFilter;
@@ -30,7 +31,6 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.channels.FileChannel;
@@ -39,7 +39,11 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import io.github.alexmofer.android.support.function.FunctionPLongLong;
 import io.github.alexmofer.android.support.function.FunctionRObjectThrowable;
 
 /**
@@ -64,6 +68,7 @@ public class FileUtils {
     static final char ILLEGAL_CHARACTER_8 = '\"';
     private static final int MAX_EXTENSION_LENGTH = 64;
     private static final int MAX_TIMES = 5000;
+    private static final int COPY_PARALLELISM = 4;
 
     private FileUtils() {
         //no instance
@@ -159,13 +164,8 @@ public class FileUtils {
             if (!dest.exists() && !dest.mkdirs()) {
                 throw new IOException("Failed to create destination directory: " + dest.getPath());
             }
-
-            String[] children = src.list();
-            if (children != null) {
-                for (String child : children) {
-                    copyRecursive(new File(src, child), new File(dest, child));
-                }
-            }
+            copyDirectoryContent(src, dest, null, true, true,
+                    null, COPY_PARALLELISM, null, null);
         } else {
             // 如果是文件，执行 NIO 拷贝
             copyFile(src, dest);
@@ -210,6 +210,23 @@ public class FileUtils {
      * @throws IOException 拷贝过程中任何错误均抛出异常
      */
     public static void copyDirectoryToNonExistingDirectory(File src, File dest) throws IOException {
+        copyDirectoryToNonExistingDirectory(src, dest, COPY_PARALLELISM, null, null);
+    }
+
+    /**
+     * 复制文件夹到一个不存在的目录，多个文件同时复制
+     *
+     * @param src         源文件夹
+     * @param dest        目标文件夹
+     * @param parallelism 并行数
+     * @param signal      取消信号，取消后不再复制剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress    进度回调，参数为已复制的文件数与字节数，在复制线程回调
+     * @throws IOException 拷贝过程中任何错误均抛出异常
+     */
+    public static void copyDirectoryToNonExistingDirectory(File src, File dest, int parallelism,
+                                                           @Nullable CancellationSignal signal,
+                                                           @Nullable FunctionPLongLong progress)
+            throws IOException {
         if (src == null || !src.exists()) {
             throw new IOException("Source directory does not exist: " + (src != null ? src.getPath() : "null"));
         }
@@ -222,20 +239,8 @@ public class FileUtils {
         if (!dest.mkdirs()) {
             throw new IOException("Failed to create destination directory: " + dest.getPath());
         }
-        final String[] children = src.list();
-        if (children != null) {
-            for (String child : children) {
-                final File srcChild = new File(src, child);
-                final File destChild = new File(dest, child);
-                if (srcChild.isFile()) {
-                    FileUtils.copyOrThrow(srcChild, destChild);
-                    continue;
-                }
-                if (srcChild.isDirectory()) {
-                    copyDirectoryToNonExistingDirectory(srcChild, destChild);
-                }
-            }
-        }
+        copyDirectoryContent(src, dest, null, false, true,
+                null, parallelism, signal, progress);
     }
 
     @NonNull
@@ -332,6 +337,7 @@ public class FileUtils {
 
     /**
      * 写入字符串内容
+     * 原子写入，失败时保持原内容
      *
      * @param file    文件
      * @param content 字符串
@@ -341,10 +347,13 @@ public class FileUtils {
     public static boolean writeString(File file, String content, Charset cs) {
         if (content == null)
             return file.delete();
-        //noinspection IOStreamConstructor
-        try (final BufferedWriter writer = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(file), cs))) {
-            writer.write(content);
+        try {
+            AtomicFileUtils.write(file, output -> {
+                final BufferedWriter writer = new BufferedWriter(
+                        new OutputStreamWriter(output, cs));
+                writer.write(content);
+                writer.flush();
+            });
             return true;
         } catch (Exception e) {
             return false;
@@ -401,14 +410,8 @@ public class FileUtils {
             return null;
         }
         //noinspection IOStreamConstructor
-        try (final BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), cs))) {
-            final StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
-            }
-            return sb.toString();
+        try (final FileInputStream input = new FileInputStream(file)) {
+            return readString(input, cs);
         } catch (Exception e) {
             return null;
         }
@@ -434,16 +437,43 @@ public class FileUtils {
     @NonNull
     public static String readString(FunctionRObjectThrowable<ParcelFileDescriptor> provider,
                                     Charset cs) throws Exception {
-        try (final BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new ParcelFileDescriptor.AutoCloseInputStream(
-                        provider.execute()), cs))) {
-            final StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
+        try (final FileInputStream input =
+                     new ParcelFileDescriptor.AutoCloseInputStream(provider.execute())) {
+            return readString(input, cs);
+        }
+    }
+
+    /**
+     * 一次读取全部内容后解码，每行以 \n 结尾（同逐行读取后以 \n 拼接）
+     */
+    private static String readString(InputStream input, Charset cs) throws IOException {
+        final String content;
+        try (final PooledByteArray data = StreamUtils.readAllBytesPooled(input)) {
+            content = new String(data.getArray(), 0, data.length(), cs);
+        }
+        final int length = content.length();
+        if (length == 0) {
+            return content;
+        }
+        if (content.indexOf('\r') < 0) {
+            return content.charAt(length - 1) == '\n' ? content : content + "\n";
+        }
+        final StringBuilder sb = new StringBuilder(length + 1);
+        for (int i = 0; i < length; i++) {
+            final char c = content.charAt(i);
+            if (c == '\r') {
+                sb.append('\n');
+                if (i + 1 < length && content.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                sb.append(c);
             }
-            return sb.toString();
         }
+        if (sb.charAt(sb.length() - 1) != '\n') {
+            sb.append('\n');
+        }
+        return sb.toString();
     }
 
     /**
@@ -544,6 +574,53 @@ public class FileUtils {
     @NonNull
     public static Object copyDirectory(@NonNull File src, @NonNull File dest,
                                        @Nullable FileFilter filter) {
+        return copyDirectory(src, dest, filter, COPY_PARALLELISM, null, null);
+    }
+
+    /**
+     * 复制文件夹，多个文件同时复制
+     *
+     * @param src         源文件夹
+     * @param dest        目标文件夹
+     * @param filter      筛选器
+     * @param parallelism 并行数
+     * @param signal      取消信号，取消后不再复制剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress    进度回调，参数为已复制的文件数与字节数，在复制线程回调
+     * @return 返回File或者List<File>，返回的List<File>为空时表示没有错误发生
+     */
+    @NonNull
+    public static Object copyDirectory(@NonNull File src, @NonNull File dest,
+                                       @Nullable FileFilter filter, int parallelism,
+                                       @Nullable CancellationSignal signal,
+                                       @Nullable FunctionPLongLong progress) {
+        return copyDirectory(src, dest, filter, null, parallelism, signal, progress);
+    }
+
+    /**
+     * 复制文件夹，复制任务交给执行器
+     *
+     * @param src      源文件夹
+     * @param dest     目标文件夹
+     * @param filter   筛选器
+     * @param executor 执行器
+     * @param signal   取消信号，取消后不再复制剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress 进度回调，参数为已复制的文件数与字节数，在复制线程回调
+     * @return 返回File或者List<File>，返回的List<File>为空时表示没有错误发生
+     */
+    @NonNull
+    public static Object copyDirectory(@NonNull File src, @NonNull File dest,
+                                       @Nullable FileFilter filter, @NonNull Executor executor,
+                                       @Nullable CancellationSignal signal,
+                                       @Nullable FunctionPLongLong progress) {
+        return copyDirectory(src, dest, filter, executor, 1, signal, progress);
+    }
+
+    @NonNull
+    private static Object copyDirectory(@NonNull File src, @NonNull File dest,
+                                        @Nullable FileFilter filter,
+                                        @Nullable Executor executor, int parallelism,
+                                        @Nullable CancellationSignal signal,
+                                        @Nullable FunctionPLongLong progress) {
         if (!src.exists() || !src.isDirectory()) {
             // 数据源不存在或者不是文件夹
             return src;
@@ -559,39 +636,36 @@ public class FileUtils {
                 return src;
             }
         }
-        final File[] children = src.listFiles();
-        final List<File> failure = new ArrayList<>();
-        if (children != null) {
-            for (File child : children) {
-                if (filter != null && !filter.accept(child)) {
-                    continue;
-                }
-                final File target = new File(dest, child.getName());
-                if (child.isDirectory()) {
-                    final Object result = copyDirectory(child, target, filter);
-                    if (result instanceof File) {
-                        failure.add(child);
-                        continue;
-                    }
-                    //noinspection unchecked
-                    final List<File> fs = (List<File>) result;
-                    failure.addAll(fs);
-                    continue;
-                }
-                if (child.isFile()) {
-                    if (target.exists()) {
-                        failure.add(child);
-                        continue;
-                    }
-                    try {
-                        copyFile(child, target);
-                    } catch (IOException e) {
-                        failure.add(child);
-                    }
-                }
-            }
+        try {
+            return copyDirectoryContent(src, dest, filter, false, false,
+                    executor, parallelism, signal, progress);
+        } catch (IOException e) {
+            // 等待过程被中断
+            return src;
+        }
+    }
+
+    private static List<File> copyDirectoryContent(File src, File dest,
+                                                   @Nullable FileFilter filter,
+                                                   boolean overwrite, boolean stopOnFailure,
+                                                   @Nullable Executor executor, int parallelism,
+                                                   @Nullable CancellationSignal signal,
+                                                   @Nullable FunctionPLongLong progress)
+            throws IOException {
+        if (executor != null || parallelism <= 1) {
+            return new DirectoryCopier(filter, overwrite, stopOnFailure,
+                    executor == null ? Runnable::run : executor,
+                    DirectoryCopier.DEFAULT_MAX_IN_FLIGHT_BYTES, signal, progress)
+                    .copy(src, dest);
+        }
+        final ExecutorService service = Executors.newWorkStealingPool(parallelism);
+        try {
+            return new DirectoryCopier(filter, overwrite, stopOnFailure, service,
+                    DirectoryCopier.DEFAULT_MAX_IN_FLIGHT_BYTES, signal, progress)
+                    .copy(src, dest);
+        } finally {
+            service.shutdown();
         }
-        return failure;
     }
 
     /**
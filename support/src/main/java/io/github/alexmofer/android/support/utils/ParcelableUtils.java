@@ -23,7 +23,6 @@ import androidx.annotation.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 
 /**
@@ -62,8 +61,23 @@ public class ParcelableUtils {
     @NonNull
     public static <T extends Parcelable> T unmarshall(@NonNull byte[] data,
                                                       @NonNull Parcelable.Creator<T> creator) {
+        return unmarshall(data, 0, data.length, creator);
+    }
+
+    /**
+     * 反序列化
+     *
+     * @param data    字节数组
+     * @param offset  偏移
+     * @param length  长度
+     * @param creator Parcelable.Creator
+     * @return 对象
+     */
+    @NonNull
+    public static <T extends Parcelable> T unmarshall(@NonNull byte[] data, int offset, int length,
+                                                      @NonNull Parcelable.Creator<T> creator) {
         final Parcel parcel = Parcel.obtain();
-        parcel.unmarshall(data, 0, data.length);
+        parcel.unmarshall(data, offset, length);
         parcel.setDataPosition(0);
         final T parcelable = creator.createFromParcel(parcel);
         parcel.recycle();
@@ -72,6 +86,7 @@ public class ParcelableUtils {
 
     /**
      * 序列化
+     * 原子写入，失败时保持原内容
      *
      * @param parcelable Parcelable
      * @param file       文件
@@ -79,8 +94,8 @@ public class ParcelableUtils {
      */
     public static boolean marshall(@NonNull Parcelable parcelable, @NonNull File file) {
         final byte[] data = marshall(parcelable);
-        try (final FileOutputStream output = new FileOutputStream(file)) {
-            output.write(data);
+        try {
+            AtomicFileUtils.write(file, data);
             return true;
         } catch (IOException e) {
             return false;
@@ -97,8 +112,9 @@ public class ParcelableUtils {
     @Nullable
     public static <T extends Parcelable> T unmarshall(@NonNull File file,
                                                       @NonNull Parcelable.Creator<T> creator) {
-        try (final FileInputStream input = new FileInputStream(file)) {
-            return unmarshall(StreamUtils.readAllBytes(input), creator);
+        try (final FileInputStream input = new FileInputStream(file);
+             final PooledByteArray data = StreamUtils.readAllBytesPooled(input)) {
+            return unmarshall(data.getArray(), 0, data.length(), creator);
         } catch (IOException e) {
             return null;
         }
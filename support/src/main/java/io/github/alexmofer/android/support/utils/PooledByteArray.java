@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 可复用的字节数组
+ * 释放后数组归还到共享池，再次获取相近大小的数组时不再分配内存；释放后不可再访问数组。
+ * <pre>
+ * try (final PooledByteArray data = StreamUtils.readAllBytesPooled(input)) {
+ *     parcel.unmarshall(data.getArray(), 0, data.length());
+ * }
+ * </pre>
+ * Created by Alex on 2026/10/18.
+ */
+public final class PooledByteArray implements Closeable {
+
+    private static final int ALIGNMENT = 64 * 1024;
+    private static final int MAX_POOLED_SIZE = 4 * 1024 * 1024;
+    private static final long MAX_POOLED_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_WASTE_RATIO = 2;
+    // 按归还顺序排列，超出总量时先移除最早归还的数组
+    private static final ArrayList<byte[]> sPool = new ArrayList<>();
+    private static long sPooledBytes;
+    private byte[] mArray;
+    private int mLength;
+
+    private PooledByteArray(byte[] array) {
+        mArray = array;
+    }
+
+    /**
+     * 获取可复用的字节数组
+     *
+     * @param capacity 最小容量
+     * @return 可复用的字节数组，长度为0
+     */
+    @NonNull
+    public static PooledByteArray obtain(int capacity) {
+        return new PooledByteArray(obtainArray(capacity));
+    }
+
+    /**
+     * 释放共享池中的全部数组，可在 {@link android.content.ComponentCallbacks2#onTrimMemory(int)} 中调用
+     */
+    public static void trim() {
+        synchronized (sPool) {
+            sPool.clear();
+            sPooledBytes = 0;
+        }
+    }
+
+    private static byte[] obtainArray(int capacity) {
+        final long aligned = ((long) capacity + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        // 远大于所需容量的数组不复用，避免小请求占用大数组
+        final long limit = Math.max(aligned, ALIGNMENT) * MAX_WASTE_RATIO;
+        synchronized (sPool) {
+            // 取满足容量的最小数组
+            int index = -1;
+            for (int i = 0; i < sPool.size(); i++) {
+                final int length = sPool.get(i).length;
+                if (length >= capacity && length <= limit
+                        && (index < 0 || length < sPool.get(index).length)) {
+                    index = i;
+                }
+            }
+            if (index >= 0) {
+                final byte[] array = sPool.remove(index);
+                sPooledBytes -= array.length;
+                return array;
+            }
+        }
+        return new byte[(int) Math.min(Math.max(aligned, capacity), Integer.MAX_VALUE - 8)];
+    }
+
+    private static void recycleArray(byte[] array) {
+        if (array.length > MAX_POOLED_SIZE) {
+            return;
+        }
+        synchronized (sPool) {
+            sPool.add(array);
+            sPooledBytes += array.length;
+            while (sPooledBytes > MAX_POOLED_BYTES) {
+                sPooledBytes -= sPool.remove(0).length;
+            }
+        }
+    }
+
+    /**
+     * 获取数组，有效数据为 [0, {@link #length()})
+     *
+     * @return 数组
+     */
+    @NonNull
+    public byte[] getArray() {
+        if (mArray == null) {
+            throw new IllegalStateException("Already released");
+        }
+        return mArray;
+    }
+
+    /**
+     * 获取有效数据长度
+     *
+     * @return 长度
+     */
+    public int length() {
+        return mLength;
+    }
+
+    /**
+     * 设置有效数据长度
+     *
+     * @param length 长度
+     */
+    public void setLength(int length) {
+        if (length < 0 || length > getArray().length) {
+            throw new IndexOutOfBoundsException("length: " + length);
+        }
+        mLength = length;
+    }
+
+    /**
+     * 确保容量，扩容时保留有效数据
+     *
+     * @param capacity 最小容量
+     * @return 数组
+     */
+    @NonNull
+    public byte[] ensureCapacity(int capacity) {
+        final byte[] array = getArray();
+        if (array.length >= capacity) {
+            return array;
+        }
+        final byte[] expanded = obtainArray(capacity);
+        System.arraycopy(array, 0, expanded, 0, mLength);
+        mArray = expanded;
+        recycleArray(array);
+        return expanded;
+    }
+
+    /**
+     * 复制有效数据
+     *
+     * @return 字节数组
+     */
+    @NonNull
+    public byte[] toByteArray() {
+        return Arrays.copyOf(getArray(), mLength);
+    }
+
+    /**
+     * 释放，数组归还到共享池
+     */
+    public void release() {
+        final byte[] array = mArray;
+        if (array == null) {
+            return;
+        }
+        mArray = null;
+        mLength = 0;
+        recycleArray(array);
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -16,8 +16,10 @@
 package io.github.alexmofer.android.support.utils;
 
 import android.os.Build;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -25,10 +27,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.List;
+
+import io.github.alexmofer.android.support.function.FunctionPLong;
 
 /**
  * 流工具
@@ -36,6 +40,18 @@ import java.util.List;
  */
 public final class StreamUtils {
 
+    /**
+     * 不刷新，由调用方负责
+     */
+    public static final int FLUSH_NEVER = 0;
+    /**
+     * 复制结束时刷新一次
+     */
+    public static final int FLUSH_AT_END = 1;
+    /**
+     * 每次写入后刷新
+     */
+    public static final int FLUSH_EVERY_WRITE = 2;
     private static final int DEFAULT_BUFFER_SIZE = 8192;
     /**
      * The maximum size of array to allocate.
@@ -44,32 +60,152 @@ public final class StreamUtils {
      * OutOfMemoryError: Requested array size exceeds VM limit
      */
     private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final long TRANSFER_SIZE = 8 * 1024 * 1024;
+    private static final ArrayDeque<byte[]> sBuffers = new ArrayDeque<>(MAX_POOLED_BUFFERS);
 
     private StreamUtils() {
         //no instance
     }
 
     /**
-     * 复制
+     * 复制，结束时刷新输出流
      *
      * @param input  输入
      * @param output 输出
      * @throws IOException 读写错误
      */
     public static void copy(InputStream input, OutputStream output) throws IOException {
-        final byte[] buffer = new byte[1024];
-        int count;
-        while ((count = input.read(buffer)) != -1) {
-            if (count == 0) {
-                count = input.read();
-                if (count < 0)
-                    break;
-                output.write(count);
-                continue;
+        copy(input, output, FLUSH_AT_END, null);
+    }
+
+    /**
+     * 复制，不关闭输入输出流
+     * 输入输出均为完整文件的文件流（{@link FileInputStream}、{@link FileOutputStream} 本身，
+     * 或 {@link ParcelFileDescriptor.AutoCloseInputStream}、{@link ParcelFileDescriptor.AutoCloseOutputStream}）时通过
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} 复制，
+     * 否则（包括 Asset 等仅对应文件一部分的 AssetFileDescriptor 输入流）使用复用的缓冲区复制。
+     *
+     * @param input       输入
+     * @param output      输出
+     * @param flushPolicy 刷新策略
+     * @param progress    进度回调，参数为已复制的字节数
+     * @return 复制的字节数
+     * @throws IOException 读写错误
+     */
+    public static long copy(@NonNull InputStream input, @NonNull OutputStream output,
+                            int flushPolicy, @Nullable FunctionPLong progress)
+            throws IOException {
+        long total = 0;
+        if (isWholeFile(input) && isWholeFile(output)) {
+            total = transfer(((FileInputStream) input).getChannel(),
+                    ((FileOutputStream) output).getChannel(), progress);
+        }
+        // 非文件流，或长度未知的文件（如管道、/proc 下的文件）读取剩余部分
+        final byte[] buffer = obtainBuffer();
+        try {
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                if (count == 0) {
+                    count = input.read();
+                    if (count < 0)
+                        break;
+                    output.write(count);
+                    count = 1;
+                } else {
+                    output.write(buffer, 0, count);
+                }
+                if (flushPolicy == FLUSH_EVERY_WRITE) {
+                    output.flush();
+                }
+                total += count;
+                if (progress != null) {
+                    progress.execute(total);
+                }
             }
-            output.write(buffer, 0, count);
+        } finally {
+            releaseBuffer(buffer);
+        }
+        if (flushPolicy != FLUSH_NEVER) {
             output.flush();
         }
+        return total;
+    }
+
+    /**
+     * 判断是否为完整文件的输入流，仅此时通道的位置与大小对应流的内容，
+     * Asset 等输入流的通道包含范围外的数据
+     */
+    static boolean isWholeFile(InputStream input) {
+        final Class<?> type = input.getClass();
+        return type == FileInputStream.class
+                || type == ParcelFileDescriptor.AutoCloseInputStream.class;
+    }
+
+    private static boolean isWholeFile(OutputStream output) {
+        final Class<?> type = output.getClass();
+        return type == FileOutputStream.class
+                || type == ParcelFileDescriptor.AutoCloseOutputStream.class;
+    }
+
+    private static long transfer(FileChannel input, FileChannel output,
+                                 @Nullable FunctionPLong progress) throws IOException {
+        final long start;
+        final long size;
+        try {
+            start = input.position();
+            size = input.size();
+        } catch (IOException e) {
+            // 不支持定位的通道
+            return 0;
+        }
+        long position = start;
+        while (position < size) {
+            final long count = input.transferTo(position,
+                    Math.min(TRANSFER_SIZE, size - position), output);
+            if (count <= 0) {
+                break;
+            }
+            position += count;
+            if (progress != null) {
+                progress.execute(position - start);
+            }
+        }
+        input.position(position);
+        return position - start;
+    }
+
+    /**
+     * 获取复用的缓冲区，使用完毕后应通过 {@link #releaseBuffer(byte[])} 归还
+     *
+     * @return 缓冲区
+     */
+    @NonNull
+    static byte[] obtainBuffer() {
+        synchronized (sBuffers) {
+            final byte[] buffer = sBuffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer 缓冲区
+     */
+    static void releaseBuffer(@NonNull byte[] buffer) {
+        if (buffer.length != BUFFER_SIZE) {
+            return;
+        }
+        synchronized (sBuffers) {
+            if (sBuffers.size() < MAX_POOLED_BUFFERS) {
+                sBuffers.push(buffer);
+            }
+        }
     }
 
     /**
@@ -117,64 +253,7 @@ public final class StreamUtils {
         if (len < 0) {
             throw new IllegalArgumentException("len < 0");
         }
-
-        List<byte[]> bufs = null;
-        byte[] result = null;
-        int total = 0;
-        int remaining = len;
-        int n;
-        do {
-            byte[] buf = new byte[Math.min(remaining, DEFAULT_BUFFER_SIZE)];
-            int nread = 0;
-
-            // read to EOF which may read more or less than buffer size
-            while ((n = input.read(buf, nread,
-                    Math.min(buf.length - nread, remaining))) > 0) {
-                nread += n;
-                remaining -= n;
-            }
-
-            if (nread > 0) {
-                if (MAX_BUFFER_SIZE - total < nread) {
-                    throw new OutOfMemoryError("Required array size too large");
-                }
-                if (nread < buf.length) {
-                    buf = Arrays.copyOfRange(buf, 0, nread);
-                }
-                total += nread;
-                if (result == null) {
-                    result = buf;
-                } else {
-                    if (bufs == null) {
-                        bufs = new ArrayList<>();
-                        bufs.add(result);
-                    }
-                    bufs.add(buf);
-                }
-            }
-            // if the last call to read returned -1 or the number of bytes
-            // requested have been read then break
-        } while (n >= 0 && remaining > 0);
-
-        if (bufs == null) {
-            if (result == null) {
-                return new byte[0];
-            }
-            return result.length == total ?
-                    result : Arrays.copyOf(result, total);
-        }
-
-        result = new byte[total];
-        int offset = 0;
-        remaining = total;
-        for (byte[] b : bufs) {
-            int count = Math.min(b.length, remaining);
-            System.arraycopy(b, 0, result, offset, count);
-            offset += count;
-            remaining -= count;
-        }
-
-        return result;
+        return read(input, len, estimateSize(input));
     }
 
     /**
@@ -211,6 +290,132 @@ public final class StreamUtils {
         return readNBytes(input, Integer.MAX_VALUE);
     }
 
+    /**
+     * 读取全部剩余数据，不关闭输入流
+     * 按预估大小一次分配，大小准确时不再复制。
+     *
+     * @param input    输入
+     * @param sizeHint 预估大小，小于等于0时按输入流自动预估
+     * @return 数据
+     * @throws IOException 读取错误
+     */
+    @NonNull
+    public static byte[] readAllBytes(@NonNull InputStream input, int sizeHint)
+            throws IOException {
+        return read(input, Integer.MAX_VALUE, sizeHint > 0 ? sizeHint : estimateSize(input));
+    }
+
+    /**
+     * 读取全部剩余数据到可复用的字节数组，不关闭输入流，使用完毕后应释放
+     *
+     * @param input 输入
+     * @return 可复用的字节数组
+     * @throws IOException 读取错误
+     */
+    @NonNull
+    public static PooledByteArray readAllBytesPooled(@NonNull InputStream input)
+            throws IOException {
+        return readAllBytesPooled(input, 0);
+    }
+
+    /**
+     * 读取全部剩余数据到可复用的字节数组，不关闭输入流，使用完毕后应释放
+     *
+     * @param input    输入
+     * @param sizeHint 预估大小，小于等于0时按输入流自动预估
+     * @return 可复用的字节数组
+     * @throws IOException 读取错误
+     */
+    @NonNull
+    public static PooledByteArray readAllBytesPooled(@NonNull InputStream input, int sizeHint)
+            throws IOException {
+        final int hint = sizeHint > 0 ? sizeHint : estimateSize(input);
+        // 多留一个字节，大小准确时无需扩容即可读到结尾
+        final PooledByteArray data = PooledByteArray.obtain(
+                hint > 0 && hint < MAX_BUFFER_SIZE ? hint + 1 : DEFAULT_BUFFER_SIZE);
+        try {
+            byte[] array = data.getArray();
+            int length = 0;
+            int n;
+            while (true) {
+                if (length == array.length) {
+                    if (length >= MAX_BUFFER_SIZE) {
+                        throw new OutOfMemoryError("Required array size too large");
+                    }
+                    data.setLength(length);
+                    array = data.ensureCapacity(
+                            (int) Math.min((long) length * 2, MAX_BUFFER_SIZE));
+                }
+                n = input.read(array, length, array.length - length);
+                if (n < 0) {
+                    break;
+                }
+                length += n;
+            }
+            data.setLength(length);
+            return data;
+        } catch (IOException | RuntimeException | Error e) {
+            data.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 预估输入流剩余大小，仅完整文件的输入流按通道计算，其他输入流使用 {@link InputStream#available()}
+     */
+    private static int estimateSize(InputStream input) {
+        if (isWholeFile(input)) {
+            try {
+                final FileChannel channel = ((FileInputStream) input).getChannel();
+                final long remaining = channel.size() - channel.position();
+                if (remaining > 0) {
+                    return (int) Math.min(remaining, MAX_BUFFER_SIZE);
+                }
+            } catch (IOException e) {
+                // 不支持定位的通道
+            }
+        }
+        try {
+            return input.available();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] read(InputStream input, int len, int hint) throws IOException {
+        if (len == 0) {
+            return new byte[0];
+        }
+        byte[] buffer = new byte[Math.min(len, hint > 0 ? hint : DEFAULT_BUFFER_SIZE)];
+        int total = 0;
+        while (true) {
+            int n;
+            while (total < buffer.length
+                    && (n = input.read(buffer, total, buffer.length - total)) >= 0) {
+                total += n;
+            }
+            if (total < buffer.length) {
+                // 已到结尾
+                return Arrays.copyOf(buffer, total);
+            }
+            if (total == len) {
+                return buffer;
+            }
+            // 缓冲区已满，读取一个字节确认是否还有数据，避免大小准确时扩容
+            final int next = input.read();
+            if (next < 0) {
+                return buffer;
+            }
+            if (total >= MAX_BUFFER_SIZE) {
+                throw new OutOfMemoryError("Required array size too large");
+            }
+            final long capacity = Math.max((long) total * 2, total + DEFAULT_BUFFER_SIZE);
+            buffer = Arrays.copyOf(buffer, (int) Math.min(Math.min(capacity, len),
+                    MAX_BUFFER_SIZE));
+            buffer[total++] = (byte) next;
+        }
+    }
+
     @NonNull
     public static InputStream newInputStream(@NonNull File file) throws IOException {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
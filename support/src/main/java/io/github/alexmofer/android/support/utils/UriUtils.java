@@ -22,6 +22,8 @@ import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.provider.DocumentsContract;
 import android.text.TextUtils;
 
@@ -32,16 +34,23 @@ import androidx.annotation.RequiresApi;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.github.alexmofer.android.support.function.FunctionPLongLong;
+import io.github.alexmofer.android.support.function.FunctionRBooleanPObject;
 
 /**
  * Uri 工具
@@ -50,6 +59,7 @@ import java.util.List;
 public class UriUtils {
 
     private static final int FLAG_VIRTUAL_DOCUMENT = 1 << 9;
+    private static final int COPY_PARALLELISM = 4;
 
     private UriUtils() {
         //no instance
@@ -78,13 +88,14 @@ public class UriUtils {
      * @noinspection SameParameterValue
      */
     @RequiresApi(19)
-    private static int queryForInt(ContentResolver resolver, Uri uri, String column,
-                                   int defaultValue) {
+    @Nullable
+    private static String queryForString(ContentResolver resolver, Uri uri, String column,
+                                         @Nullable String defaultValue) {
         try (final Cursor cursor = resolver.query(uri, new String[]{column},
                 null, null, null)) {
             if (cursor != null) {
                 if (cursor.moveToFirst() && !cursor.isNull(0)) {
-                    return cursor.getInt(0);
+                    return cursor.getString(0);
                 }
             }
         } catch (Throwable t) {
@@ -94,23 +105,35 @@ public class UriUtils {
     }
 
     /**
-     * @noinspection SameParameterValue
+     * 查询元数据各列，提供者不支持部分列时查询全部列
      */
     @RequiresApi(19)
     @Nullable
-    private static String queryForString(ContentResolver resolver, Uri uri, String column,
-                                         @Nullable String defaultValue) {
-        try (final Cursor cursor = resolver.query(uri, new String[]{column},
-                null, null, null)) {
-            if (cursor != null) {
-                if (cursor.moveToFirst() && !cursor.isNull(0)) {
-                    return cursor.getString(0);
-                }
-            }
-        } catch (Throwable t) {
-            // ignore
+    private static Cursor queryMetadata(ContentResolver resolver, Uri uri) {
+        try {
+            return resolver.query(uri, DocumentMetadata.COLUMNS, null, null, null);
+        } catch (SecurityException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return resolver.query(uri, null, null, null, null);
         }
-        return defaultValue;
+    }
+
+    /**
+     * 获取元数据，优先使用缓存
+     */
+    @RequiresApi(19)
+    @Nullable
+    private static DocumentMetadata getCachedMetadata(ContentResolver resolver, Uri uri) {
+        final DocumentMetadata cached = DocumentCache.getMetadata(uri);
+        if (cached != null) {
+            return cached;
+        }
+        final DocumentMetadata metadata = getMetadata(resolver, uri);
+        if (metadata != null) {
+            DocumentCache.putMetadata(metadata);
+        }
+        return metadata;
     }
 
     @RequiresApi(19)
@@ -149,6 +172,40 @@ public class UriUtils {
                 & FLAG_VIRTUAL_DOCUMENT) != 0;
     }
 
+    /**
+     * 获取元数据
+     * 一次查询获取名称、类型、长度、最后编辑时间及标志位，需要多项信息时应优先使用
+     *
+     * @param resolver ContentResolver
+     * @param uri      链接
+     * @return 元数据，不存在或者失败时返回null
+     */
+    @RequiresApi(19)
+    @Nullable
+    public static DocumentMetadata getMetadata(ContentResolver resolver, Uri uri) {
+        try (final Cursor cursor = queryMetadata(resolver, uri)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return DocumentMetadata.read(uri, cursor, new DocumentMetadata.Columns(cursor));
+            }
+        } catch (Throwable t) {
+            // ignore
+        }
+        return null;
+    }
+
+    /**
+     * 获取元数据
+     *
+     * @param context Context
+     * @param uri     链接
+     * @return 元数据，不存在或者失败时返回null
+     */
+    @RequiresApi(19)
+    @Nullable
+    public static DocumentMetadata getMetadata(Context context, Uri uri) {
+        return getMetadata(context.getContentResolver(), uri);
+    }
+
     /**
      * 获取名称
      *
@@ -330,7 +387,24 @@ public class UriUtils {
             return false;
         }
         // Ignore documents without MIME
-        return !TextUtils.isEmpty(getRawType(context.getContentResolver(), uri));
+        final DocumentMetadata metadata = getCachedMetadata(context.getContentResolver(), uri);
+        return metadata != null && !TextUtils.isEmpty(metadata.getRawType());
+    }
+
+    /**
+     * 判断是否可读
+     *
+     * @param context  Context
+     * @param metadata 元数据
+     * @return 可读时返回true
+     */
+    @RequiresApi(19)
+    public static boolean canRead(Context context, @NonNull DocumentMetadata metadata) {
+        if (context.checkCallingOrSelfUriPermission(metadata.getUri(),
+                Intent.FLAG_GRANT_READ_URI_PERMISSION) != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        return !TextUtils.isEmpty(metadata.getRawType());
     }
 
     /**
@@ -347,29 +421,25 @@ public class UriUtils {
                 != PackageManager.PERMISSION_GRANTED) {
             return false;
         }
+        // 类型与标志位一次查询
+        final DocumentMetadata metadata = getCachedMetadata(context.getContentResolver(), uri);
+        return metadata != null && metadata.isWritable();
+    }
 
-        final ContentResolver resolver = context.getContentResolver();
-        final String type = getRawType(resolver, uri);
-        final int flags = queryForInt(resolver, uri, DocumentsContract.Document.COLUMN_FLAGS, 0);
-
-        // Ignore documents without MIME
-        if (TextUtils.isEmpty(type)) {
+    /**
+     * 判断是否可写
+     *
+     * @param context  Context
+     * @param metadata 元数据
+     * @return 可写时返回true
+     */
+    @RequiresApi(19)
+    public static boolean canWrite(Context context, @NonNull DocumentMetadata metadata) {
+        if (context.checkCallingOrSelfUriPermission(metadata.getUri(),
+                Intent.FLAG_GRANT_WRITE_URI_PERMISSION) != PackageManager.PERMISSION_GRANTED) {
             return false;
         }
-
-        // Deletable documents considered writable
-        if ((flags & DocumentsContract.Document.FLAG_SUPPORTS_DELETE) != 0) {
-            return true;
-        }
-
-        // Writable normal files considered writable
-        if (DocumentsContract.Document.MIME_TYPE_DIR.equals(type)
-                && (flags & DocumentsContract.Document.FLAG_DIR_SUPPORTS_CREATE) != 0) {
-            // Directories that allow create considered writable
-            return true;
-        }
-        return !TextUtils.isEmpty(type)
-                && (flags & DocumentsContract.Document.FLAG_SUPPORTS_WRITE) != 0;
+        return metadata.isWritable();
     }
 
     /**
@@ -412,6 +482,18 @@ public class UriUtils {
      */
     @RequiresApi(19)
     public static boolean delete(ContentResolver resolver, Uri uri) {
+        try {
+            return deleteDocument(resolver, uri);
+        } finally {
+            DocumentCache.onDocumentChanged();
+        }
+    }
+
+    /**
+     * 删除，不更新缓存，批量操作结束后由调用方更新
+     */
+    @RequiresApi(19)
+    static boolean deleteDocument(ContentResolver resolver, Uri uri) {
         try {
             return DocumentsContract.deleteDocument(resolver, uri);
         } catch (Throwable t) {
@@ -444,6 +526,20 @@ public class UriUtils {
     @Nullable
     public static Uri createFile(ContentResolver resolver, @NonNull Uri directory,
                                  @NonNull String mimeType, @NonNull String displayName) {
+        try {
+            return createDocument(resolver, directory, mimeType, displayName);
+        } finally {
+            DocumentCache.onChildCreated(directory);
+        }
+    }
+
+    /**
+     * 创建文件，不更新缓存，批量操作结束后由调用方更新
+     */
+    @RequiresApi(21)
+    @Nullable
+    static Uri createDocument(ContentResolver resolver, @NonNull Uri directory,
+                              @NonNull String mimeType, @NonNull String displayName) {
         if (!isTreeUri(directory)) {
             return null;
         }
@@ -521,6 +617,8 @@ public class UriUtils {
             return DocumentsContract.renameDocument(resolver, uri, displayName);
         } catch (Throwable t) {
             return null;
+        } finally {
+            DocumentCache.onDocumentChanged();
         }
     }
 
@@ -587,8 +685,65 @@ public class UriUtils {
         return listChildren(context.getContentResolver(), directory);
     }
 
+    /**
+     * 列出子项及其元数据
+     * 元数据来自列出子项的同一次查询，无需逐个查询
+     *
+     * @param resolver  ContentResolver
+     * @param directory 文件夹
+     * @return 子项元数据
+     * @throws Exception 错误
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static List<DocumentMetadata> listChildrenMetadata(ContentResolver resolver,
+                                                              @NonNull Uri directory)
+            throws Exception {
+        if (!isTreeUri(directory)) {
+            throw new IllegalArgumentException("Not a tree uri");
+        }
+        final ArrayList<DocumentMetadata> results = new ArrayList<>();
+        try (final Cursor cursor = resolver.query(
+                DocumentsContract.buildChildDocumentsUriUsingTree(
+                        directory, DocumentsContract.getDocumentId(directory)),
+                DocumentMetadata.COLUMNS, null, null, null)) {
+            if (cursor == null) {
+                throw new Exception("Cannot list children.");
+            }
+            final DocumentMetadata.Columns columns = new DocumentMetadata.Columns(cursor);
+            if (columns.mDocumentId < 0) {
+                throw new Exception("Cannot list children.");
+            }
+            while (cursor.moveToNext()) {
+                final String documentId = cursor.getString(columns.mDocumentId);
+                final Uri documentUri = DocumentsContract.buildDocumentUriUsingTree(directory,
+                        documentId);
+                results.add(DocumentMetadata.read(documentUri, cursor, columns));
+            }
+        }
+        DocumentCache.putChildren(directory, results);
+        return results;
+    }
+
+    /**
+     * 列出子项及其元数据
+     *
+     * @param context   Context
+     * @param directory 文件夹
+     * @return 子项元数据
+     * @throws Exception 错误
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static List<DocumentMetadata> listChildrenMetadata(Context context,
+                                                              @NonNull Uri directory)
+            throws Exception {
+        return listChildrenMetadata(context.getContentResolver(), directory);
+    }
+
     /**
      * 查找子项
+     * 结果由 {@link DocumentCache} 缓存，缓存中找不到时重新列出
      *
      * @param resolver  ContentResolver
      * @param directory 文件夹
@@ -602,20 +757,14 @@ public class UriUtils {
         if (!isTreeUri(directory)) {
             return null;
         }
-        try (final Cursor cursor = resolver.query(
-                DocumentsContract.buildChildDocumentsUriUsingTree(
-                        directory, DocumentsContract.getDocumentId(directory)),
-                new String[]{DocumentsContract.Document.COLUMN_DOCUMENT_ID,
-                        DocumentsContract.Document.COLUMN_DISPLAY_NAME},
-                null, null, null)) {
-            if (cursor == null) {
-                return null;
-            }
-            while (cursor.moveToNext()) {
-                final String documentId = cursor.getString(0);
-                final String displayName = cursor.getString(1);
-                if (TextUtils.equals(displayName, name)) {
-                    return DocumentsContract.buildDocumentUriUsingTree(directory, documentId);
+        final Uri cached = DocumentCache.getChild(directory, name);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            for (DocumentMetadata child : listChildrenMetadata(resolver, directory)) {
+                if (TextUtils.equals(child.getName(), name)) {
+                    return child.getUri();
                 }
             }
         } catch (Throwable t) {
@@ -639,6 +788,47 @@ public class UriUtils {
         return findChild(context.getContentResolver(), directory, name);
     }
 
+    /**
+     * 按路径查找子孙项
+     * 逐级查找，各级子项由 {@link DocumentCache} 缓存
+     *
+     * @param resolver  ContentResolver
+     * @param directory 文件夹
+     * @param path      以 / 分隔的相对路径，如 a/b/c.txt
+     * @return 子孙项，找不到或者失败时返回null
+     */
+    @RequiresApi(21)
+    @Nullable
+    public static Uri findChildByPath(ContentResolver resolver,
+                                      @NonNull Uri directory, @NonNull String path) {
+        Uri current = directory;
+        for (String name : path.split("/")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            current = findChild(resolver, current, name);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 按路径查找子孙项
+     *
+     * @param context   Context
+     * @param directory 文件夹
+     * @param path      以 / 分隔的相对路径，如 a/b/c.txt
+     * @return 子孙项，找不到或者失败时返回null
+     */
+    @RequiresApi(21)
+    @Nullable
+    public static Uri findChildByPath(Context context,
+                                      @NonNull Uri directory, @NonNull String path) {
+        return findChildByPath(context.getContentResolver(), directory, path);
+    }
+
 
     /**
      * 转为 Tree Uri
@@ -651,6 +841,10 @@ public class UriUtils {
     @RequiresApi(21)
     @NonNull
     public static Uri toTreeUri(@NonNull Context context, @NonNull Uri uri) {
+        final Uri cached = DocumentCache.getTreeUri(uri);
+        if (cached != null) {
+            return cached;
+        }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             if (!DocumentsContract.isTreeUri(uri)) {
                 throw new IllegalArgumentException("Not a tree uri");
@@ -661,13 +855,17 @@ public class UriUtils {
                 throw new IllegalArgumentException("Not a tree uri");
             }
         }
+        // isDocumentUri 需查询文档提供者，结果不会变化，可一直缓存
+        final Uri treeUri;
         if (DocumentsContract.isDocumentUri(context, uri)) {
-            return DocumentsContract.buildDocumentUriUsingTree(uri,
+            treeUri = DocumentsContract.buildDocumentUriUsingTree(uri,
                     DocumentsContract.getDocumentId(uri));
         } else {
-            return DocumentsContract.buildDocumentUriUsingTree(uri,
+            treeUri = DocumentsContract.buildDocumentUriUsingTree(uri,
                     DocumentsContract.getTreeDocumentId(uri));
         }
+        DocumentCache.putTreeUri(uri, treeUri);
+        return treeUri;
     }
 
     /**
@@ -733,6 +931,224 @@ public class UriUtils {
         }
     }
 
+    @RequiresApi(21)
+    @NonNull
+    private static Object transferDirectory(Context context, @NonNull Uri src, @NonNull Uri dest,
+                                            @Nullable FunctionRBooleanPObject<DocumentMetadata> filter,
+                                            boolean move, int parallelism,
+                                            @Nullable CancellationSignal signal,
+                                            @Nullable FunctionPLongLong progress) {
+        final ContentResolver resolver = context.getContentResolver();
+        final DocumentMetadata source = getMetadata(resolver, src);
+        if (source == null || !source.isDirectory()) {
+            // 数据源不存在或者不是文件夹
+            return src;
+        }
+        final DocumentMetadata target = getMetadata(resolver, dest);
+        if (target == null || !target.isDirectory()) {
+            // 目标不存在或者不是文件夹
+            return src;
+        }
+        final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            final List<DocumentMetadata> failure = new DocumentCopier.Documents(resolver,
+                    filter, move, service, parallelism * 2, signal, progress)
+                    .copy(source, dest);
+            final List<Uri> uris = new ArrayList<>(failure.size());
+            for (DocumentMetadata item : failure) {
+                uris.add(item.getUri());
+            }
+            return uris;
+        } catch (InterruptedIOException e) {
+            // 等待过程被中断
+            return src;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @RequiresApi(21)
+    @NonNull
+    private static Object transferDirectory(Context context, @NonNull File src, @NonNull Uri dest,
+                                            @Nullable FileFilter filter,
+                                            boolean move, int parallelism,
+                                            @Nullable CancellationSignal signal,
+                                            @Nullable FunctionPLongLong progress) {
+        if (!src.exists() || !src.isDirectory()) {
+            // 数据源不存在或者不是文件夹
+            return src;
+        }
+        final ContentResolver resolver = context.getContentResolver();
+        final DocumentMetadata target = getMetadata(resolver, dest);
+        if (target == null || !target.isDirectory()) {
+            // 目标不存在或者不是文件夹
+            return src;
+        }
+        final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            return new DocumentCopier.Files(resolver, filter == null ? null : filter::accept,
+                    move, service, parallelism * 2, signal, progress)
+                    .copy(src, dest);
+        } catch (InterruptedIOException e) {
+            // 等待过程被中断
+            return src;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * 复制文件夹
+     * 源文件夹仅遍历一次，目标文件夹预先创建，多个文件同时复制；目标中已存在的同名文件视为失败
+     *
+     * @param context     Context
+     * @param src         源文件夹
+     * @param dest        目标文件夹
+     * @param filter      筛选器
+     * @param parallelism 并行数
+     * @param signal      取消信号，取消后不再复制剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress    进度回调，参数为已复制的文件数与字节数，在复制线程回调，可据此计算吞吐量
+     * @return 返回Uri或者List<Uri>，返回的List<Uri>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object copyDirectory(Context context, @NonNull Uri src, @NonNull Uri dest,
+                                       @Nullable FunctionRBooleanPObject<DocumentMetadata> filter,
+                                       int parallelism, @Nullable CancellationSignal signal,
+                                       @Nullable FunctionPLongLong progress) {
+        return transferDirectory(context, src, dest, filter, false, parallelism, signal,
+                progress);
+    }
+
+    /**
+     * 复制文件夹
+     *
+     * @param context Context
+     * @param src     源文件夹
+     * @param dest    目标文件夹
+     * @return 返回Uri或者List<Uri>，返回的List<Uri>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object copyDirectory(Context context, @NonNull Uri src, @NonNull Uri dest) {
+        return copyDirectory(context, src, dest, null, COPY_PARALLELISM, null, null);
+    }
+
+    /**
+     * 复制文件夹
+     * 源文件夹仅遍历一次，目标文件夹预先创建，多个文件同时复制；目标中已存在的同名文件视为失败
+     *
+     * @param context     Context
+     * @param src         源文件夹
+     * @param dest        目标文件夹
+     * @param filter      筛选器
+     * @param parallelism 并行数
+     * @param signal      取消信号，取消后不再复制剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress    进度回调，参数为已复制的文件数与字节数，在复制线程回调，可据此计算吞吐量
+     * @return 返回File或者List<File>，返回的List<File>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object copyDirectory(Context context, @NonNull File src, @NonNull Uri dest,
+                                       @Nullable FileFilter filter,
+                                       int parallelism, @Nullable CancellationSignal signal,
+                                       @Nullable FunctionPLongLong progress) {
+        return transferDirectory(context, src, dest, filter, false, parallelism, signal,
+                progress);
+    }
+
+    /**
+     * 复制文件夹
+     *
+     * @param context Context
+     * @param src     源文件夹
+     * @param dest    目标文件夹
+     * @return 返回File或者List<File>，返回的List<File>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object copyDirectory(Context context, @NonNull File src, @NonNull Uri dest) {
+        return copyDirectory(context, src, dest, null, COPY_PARALLELISM, null, null);
+    }
+
+    /**
+     * 移动文件夹
+     * 文件复制成功后删除源文件，最后删除已清空的源文件夹
+     * 注：完全执行成功时请自行检查 src 是否删除
+     *
+     * @param context     Context
+     * @param src         源文件夹
+     * @param dest        目标文件夹
+     * @param filter      筛选器
+     * @param parallelism 并行数
+     * @param signal      取消信号，取消后不再移动剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress    进度回调，参数为已移动的文件数与字节数，在复制线程回调，可据此计算吞吐量
+     * @return 返回Uri或者List<Uri>，返回的List<Uri>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object moveDirectory(Context context, @NonNull Uri src, @NonNull Uri dest,
+                                       @Nullable FunctionRBooleanPObject<DocumentMetadata> filter,
+                                       int parallelism, @Nullable CancellationSignal signal,
+                                       @Nullable FunctionPLongLong progress) {
+        return transferDirectory(context, src, dest, filter, true, parallelism, signal,
+                progress);
+    }
+
+    /**
+     * 移动文件夹
+     * 注：完全执行成功时请自行检查 src 是否删除
+     *
+     * @param context Context
+     * @param src     源文件夹
+     * @param dest    目标文件夹
+     * @return 返回Uri或者List<Uri>，返回的List<Uri>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object moveDirectory(Context context, @NonNull Uri src, @NonNull Uri dest) {
+        return moveDirectory(context, src, dest, null, COPY_PARALLELISM, null, null);
+    }
+
+    /**
+     * 移动文件夹
+     * 文件复制成功后删除源文件，最后删除已清空的源文件夹
+     * 注：完全执行成功时请自行检查 src 是否删除
+     *
+     * @param context     Context
+     * @param src         源文件夹
+     * @param dest        目标文件夹
+     * @param filter      筛选器
+     * @param parallelism 并行数
+     * @param signal      取消信号，取消后不再移动剩余文件并抛出 {@link OperationCanceledException}
+     * @param progress    进度回调，参数为已移动的文件数与字节数，在复制线程回调，可据此计算吞吐量
+     * @return 返回File或者List<File>，返回的List<File>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object moveDirectory(Context context, @NonNull File src, @NonNull Uri dest,
+                                       @Nullable FileFilter filter,
+                                       int parallelism, @Nullable CancellationSignal signal,
+                                       @Nullable FunctionPLongLong progress) {
+        return transferDirectory(context, src, dest, filter, true, parallelism, signal,
+                progress);
+    }
+
+    /**
+     * 移动文件夹
+     * 注：完全执行成功时请自行检查 src 是否删除
+     *
+     * @param context Context
+     * @param src     源文件夹
+     * @param dest    目标文件夹
+     * @return 返回File或者List<File>，返回的List<File>为空时表示没有错误发生
+     */
+    @RequiresApi(21)
+    @NonNull
+    public static Object moveDirectory(Context context, @NonNull File src, @NonNull Uri dest) {
+        return moveDirectory(context, src, dest, null, COPY_PARALLELISM, null, null);
+    }
+
     /**
      * 写入字符串内容
      *
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.security;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * QuickXorHasher 吞吐量基准
+ * 在主机 JVM 上与改写前的逐位实现比较，结果须一致，并输出两者的吞吐量。
+ * Created by Alex on 2026/10/18.
+ */
+public class QuickXorHasherBenchmark {
+
+    private static final int DATA_SIZE = 32 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void throughput() throws Exception {
+        final byte[] data = new byte[DATA_SIZE];
+        new Random(1).nextBytes(data);
+        long legacyBest = Long.MAX_VALUE;
+        long currentBest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            final LegacyHasher legacy = new LegacyHasher();
+            for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+                legacy.update(data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+            }
+            final byte[] expected = legacy.digest();
+            legacyBest = Math.min(legacyBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final QuickXorHasher hasher = new QuickXorHasher();
+            for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+                hasher.update(data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+            }
+            final byte[] actual = hasher.digest();
+            currentBest = Math.min(currentBest, System.nanoTime() - start);
+            assertArrayEquals(expected, actual);
+        }
+        System.out.printf("QuickXorHasher: legacy %.0f MB/s, current %.0f MB/s%n",
+                toMegabytesPerSecond(legacyBest), toMegabytesPerSecond(currentBest));
+    }
+
+    private static double toMegabytesPerSecond(long nanos) {
+        return DATA_SIZE / 1e6 / (nanos / 1e9);
+    }
+
+    /**
+     * 改写前的实现，每次更新按 160 个位置分别跨步遍历输入
+     */
+    private static final class LegacyHasher {
+        private static final int BITS_IN_LAST_CELL = 32;
+        private static final byte SHIFT = 11;
+        private static final int WIDTH_IN_BITS = 160;
+        private final long[] data = new long[(WIDTH_IN_BITS - 1) / 64 + 1];
+        private long lengthSoFar;
+        private int shiftSoFar;
+
+        void update(byte[] array, int ibStart, int cbSize) {
+            int vectorArrayIndex = shiftSoFar / 64;
+            int vectorOffset = shiftSoFar % 64;
+            final int iterations = Math.min(cbSize, WIDTH_IN_BITS);
+            for (int i = 0; i < iterations; i++) {
+                final boolean isLastCell = vectorArrayIndex == data.length - 1;
+                final int bitsInVectorCell = isLastCell ? BITS_IN_LAST_CELL : 64;
+                if (vectorOffset <= bitsInVectorCell - 8) {
+                    for (int j = ibStart + i; j < cbSize + ibStart; j += WIDTH_IN_BITS) {
+                        data[vectorArrayIndex] ^= ((long) array[j] & 0xff) << vectorOffset;
+                    }
+                } else {
+                    final int index2 = isLastCell ? 0 : (vectorArrayIndex + 1);
+                    final byte low = (byte) (bitsInVectorCell - vectorOffset);
+                    long xoredByte = 0;
+                    for (int j = ibStart + i; j < cbSize + ibStart; j += WIDTH_IN_BITS) {
+                        xoredByte ^= ((long) array[j] & 0xff);
+                    }
+                    data[vectorArrayIndex] ^= xoredByte << vectorOffset;
+                    data[index2] ^= xoredByte >> low;
+                }
+                vectorOffset += SHIFT;
+                while (vectorOffset >= bitsInVectorCell) {
+                    vectorArrayIndex = isLastCell ? 0 : vectorArrayIndex + 1;
+                    vectorOffset -= bitsInVectorCell;
+                }
+            }
+            shiftSoFar = (shiftSoFar + SHIFT * (cbSize % WIDTH_IN_BITS)) % WIDTH_IN_BITS;
+            lengthSoFar += cbSize;
+        }
+
+        byte[] digest() {
+            final ByteBuffer buffer = ByteBuffer.allocate(20);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < data.length; i++) {
+                if (i != data.length - 1) {
+                    buffer.putLong(i * 8, data[i]);
+                } else {
+                    buffer.putInt(i * 8, (int) data[i]);
+                }
+            }
+            buffer.putLong(12, buffer.getLong(12) ^ lengthSoFar);
+            return buffer.array();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.security;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * QuickXorHasher 已知结果测试
+ * 与按算法描述逐字节、逐位计算的参考实现比较。
+ * Created by Alex on 2026/10/18.
+ */
+public class QuickXorHasherTest {
+
+    private static final int[] LENGTHS = {0, 1, 7, 8, 9, 19, 20, 21, 159, 160, 161, 319,
+            320, 1000, 4096, 65537};
+
+    /**
+     * 参考实现：第 i 个字节循环左移 i * 11 位后异或到 160 位的块中，最后将长度异或到低 64 位
+     */
+    private static byte[] reference(byte[] data) {
+        final byte[] block = new byte[20];
+        for (int i = 0; i < data.length; i++) {
+            final int shift = (int) ((i * 11L) % 160);
+            final int value = data[i] & 0xff;
+            for (int k = 0; k < 8; k++) {
+                if (((value >>> k) & 1) != 0) {
+                    final int bit = (shift + k) % 160;
+                    block[bit >>> 3] ^= (byte) (1 << (bit & 7));
+                }
+            }
+        }
+        final long length = data.length;
+        for (int k = 0; k < 8; k++) {
+            block[12 + k] ^= (byte) (length >>> (k * 8));
+        }
+        return block;
+    }
+
+    private static byte[] random(int length, long seed) {
+        final byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void empty() throws Exception {
+        final QuickXorHasher hasher = new QuickXorHasher();
+        assertEquals("AAAAAAAAAAAAAAAAAAAAAAAAAAA=", hasher.digestToString());
+    }
+
+    @Test
+    public void digestMatchesReference() throws Exception {
+        for (int length : LENGTHS) {
+            final byte[] data = random(length, length);
+            final QuickXorHasher hasher = new QuickXorHasher();
+            hasher.update(data);
+            assertArrayEquals("length " + length, reference(data), hasher.digest());
+        }
+    }
+
+    @Test
+    public void chunkedUpdateMatchesReference() throws Exception {
+        final byte[] data = random(10000, 1);
+        final byte[] expected = reference(data);
+        final Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            final QuickXorHasher hasher = new QuickXorHasher();
+            int offset = 0;
+            while (offset < data.length) {
+                final int count = Math.min(data.length - offset, random.nextInt(300));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        for (int i = 0; i < count; i++) {
+                            hasher.update(data[offset + i]);
+                        }
+                        break;
+                    case 1:
+                        hasher.update(ByteBuffer.wrap(data, offset, count));
+                        break;
+                    case 2:
+                        final ByteBuffer direct = ByteBuffer.allocateDirect(count);
+                        direct.put(data, offset, count);
+                        direct.flip();
+                        hasher.update(direct);
+                        break;
+                    default:
+                        hasher.update(data, offset, count);
+                        break;
+                }
+                offset += count;
+            }
+            assertArrayEquals("round " + round, expected, hasher.digest());
+        }
+    }
+
+    @Test
+    public void digestToStringKeepsState() throws Exception {
+        final byte[] data = random(500, 3);
+        final QuickXorHasher hasher = new QuickXorHasher();
+        hasher.update(data, 0, 200);
+        final String partial = hasher.digestToString();
+        assertEquals(partial, hasher.digestToString());
+        hasher.update(data, 200, 300);
+        assertEquals(Base64.getEncoder().encodeToString(reference(data)),
+                hasher.digestToString());
+        assertEquals(data.length, hasher.getLength());
+    }
+
+    @Test
+    public void exportAndImportState() throws Exception {
+        final byte[] data = random(1234, 4);
+        final QuickXorHasher hasher = new QuickXorHasher();
+        hasher.update(data, 0, 567);
+        final QuickXorHasher restored = new QuickXorHasher();
+        assertEquals(567, restored.importState(hasher.exportState()));
+        restored.update(data, 567, data.length - 567);
+        assertArrayEquals(reference(data), restored.digest());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * CRCUtils 已知结果测试
+ * 已知结果取自 RFC 3720 附录 B.4 与常用的 "123456789" 校验值。
+ * Created by Alex on 2026/10/18.
+ */
+public class CRCUtilsTest {
+
+    private static long crc32c(byte[] data) {
+        final CRC32CCompat checksum = new CRC32CCompat();
+        checksum.update(data, 0, data.length);
+        return checksum.getValue();
+    }
+
+    private static long crc32(byte[] data, int off, int len) {
+        final CRC32 checksum = new CRC32();
+        checksum.update(data, off, len);
+        return checksum.getValue();
+    }
+
+    private static long crc32c(byte[] data, int off, int len) {
+        final CRC32CCompat checksum = new CRC32CCompat();
+        checksum.update(data, off, len);
+        return checksum.getValue();
+    }
+
+    @Test
+    public void crc32cKnownAnswers() {
+        assertEquals(0xE3069283L, crc32c("123456789".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0x00000000L, crc32c(new byte[0]));
+        final byte[] data = new byte[32];
+        assertEquals(0x8A9136AAL, crc32c(data));
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) 0xFF;
+        }
+        assertEquals(0x62A8AB43L, crc32c(data));
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        assertEquals(0x46DD794EL, crc32c(data));
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (31 - i);
+        }
+        assertEquals(0x113FDB5CL, crc32c(data));
+    }
+
+    @Test
+    public void crc32cUpdatesAgree() {
+        final byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        final long expected = crc32c(data);
+        final Random random = new Random(2);
+        final CRC32CCompat checksum = new CRC32CCompat();
+        int offset = 0;
+        while (offset < data.length) {
+            final int count = Math.min(data.length - offset, random.nextInt(5000));
+            switch (random.nextInt(3)) {
+                case 0:
+                    for (int i = 0; i < count; i++) {
+                        checksum.update(data[offset + i]);
+                    }
+                    break;
+                case 1:
+                    final ByteBuffer direct = ByteBuffer.allocateDirect(count);
+                    direct.put(data, offset, count);
+                    direct.flip();
+                    checksum.update(direct);
+                    break;
+                default:
+                    checksum.update(ByteBuffer.wrap(data, offset, count));
+                    break;
+            }
+            offset += count;
+        }
+        assertEquals(expected, checksum.getValue());
+    }
+
+    @Test
+    public void crc32KnownAnswer() {
+        final Checksum checksum = CRCUtils.newChecksum(CRCUtils.ALGORITHM_CRC32);
+        final byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        checksum.update(data, 0, data.length);
+        assertEquals(0xCBF43926L, checksum.getValue());
+        assertEquals(0xCBF43926L, CRCUtils.getValue(CRCUtils.ALGORITHM_CRC32, data));
+        assertEquals(0xE3069283L, CRCUtils.getValue(CRCUtils.ALGORITHM_CRC32C, data));
+    }
+
+    @Test
+    public void combine() {
+        final byte[] data = new byte[4096];
+        new Random(3).nextBytes(data);
+        final int[] splits = {0, 1, 3, 8, 100, 1000, 2048, 4095, 4096};
+        for (int split : splits) {
+            final int len2 = data.length - split;
+            assertEquals("crc32 split " + split, crc32(data, 0, data.length),
+                    CRCUtils.combine(CRCUtils.ALGORITHM_CRC32, crc32(data, 0, split),
+                            crc32(data, split, len2), len2));
+            assertEquals("crc32c split " + split, crc32c(data, 0, data.length),
+                    CRCUtils.combine(CRCUtils.ALGORITHM_CRC32C, crc32c(data, 0, split),
+                            crc32c(data, split, len2), len2));
+        }
+    }
+
+    @Test
+    public void combineSegments() {
+        final byte[] data = new byte[10000];
+        new Random(4).nextBytes(data);
+        final int segment = 1536;
+        long crc = 0;
+        for (int offset = 0; offset < data.length; offset += segment) {
+            final int count = Math.min(segment, data.length - offset);
+            crc = offset == 0 ? crc32c(data, 0, count) :
+                    CRCUtils.combine(CRCUtils.ALGORITHM_CRC32C, crc,
+                            crc32c(data, offset, count), count);
+        }
+        assertEquals(crc32c(data), crc);
+    }
+}
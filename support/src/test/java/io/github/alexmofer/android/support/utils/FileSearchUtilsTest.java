@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2026 AlexMofer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.alexmofer.android.support.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * FileSearchUtils 评分器测试
+ * Myers 位并行编辑距离须与动态规划结果一致。
+ * Created by Alex on 2026/10/18.
+ */
+public class FileSearchUtilsTest {
+
+    private static final String ALPHABET = "abcde_.0ıİüß文件";
+
+    private static String random(Random random, int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void distanceKnownAnswers() {
+        final FileSearchUtils.DefaultScorer scorer = new FileSearchUtils.DefaultScorer("kitten");
+        assertEquals(3, scorer.getDistanceBitParallel("sitting"));
+        assertEquals(3, scorer.getDistance("sitting"));
+        assertEquals(0, scorer.getDistanceBitParallel("kitten"));
+        assertEquals(6, scorer.getDistanceBitParallel(""));
+        assertEquals(6, scorer.getDistance(""));
+    }
+
+    @Test
+    public void bitParallelMatchesDynamicProgramming() {
+        final Random random = new Random(1);
+        for (int round = 0; round < 2000; round++) {
+            final String query = random(random, 1 + random.nextInt(64));
+            final String text = random(random, random.nextInt(100));
+            final FileSearchUtils.DefaultScorer scorer = new FileSearchUtils.DefaultScorer(query);
+            assertEquals(query + " / " + text, scorer.getDistance(text),
+                    scorer.getDistanceBitParallel(text));
+        }
+    }
+
+    @Test
+    public void scoreOrdering() {
+        final FileSearchUtils.Scorer scorer = FileSearchUtils.createDefaultScorer("report");
+        assertEquals(FileSearchUtils.SCORE_MAX, scorer.score("report", 0), 0);
+        final double prefix = scorer.score("report.txt", 0);
+        final double contains = scorer.score("my_report.txt", 0);
+        final double none = scorer.score("summary.txt", 0);
+        assertTrue(prefix > contains);
+        assertTrue(contains > none);
+    }
+}